@@ -0,0 +1,31 @@
+package model;
+
+/**
+ * 竞争指标枚举
+ */
+public enum ContentionMetric {
+    /**
+     * 锁分配次数（直接获取与等待队列交接）
+     */
+    ACQUIRE,
+
+    /**
+     * 等待队列已满被拒绝次数
+     */
+    QUEUE_FULL,
+
+    /**
+     * 累计等待时间(ms)
+     */
+    WAIT_TIME,
+
+    /**
+     * 锁超时过期次数
+     */
+    EXPIRATION,
+
+    /**
+     * 检测到死锁次数
+     */
+    DEADLOCK
+}
@@ -0,0 +1,18 @@
+package model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 竞争热点快照
+ */
+@Data
+@AllArgsConstructor
+public class ContentionSnapshot {
+    private long timestamp;                                // 快照时间
+    private Map<ContentionMetric, List<HotObject>> topObjects; // 各指标的Top-K对象（降序）
+    private Map<ContentionMetric, Long> totals;            // 各指标自启动以来的总量（不衰减）
+}
@@ -0,0 +1,17 @@
+package model;
+
+/**
+ * 死锁牺牲者选择策略
+ */
+public enum DeadlockVictimPolicy {
+    /**
+     * 拒绝引发死锁的排队请求（返回"检测到死锁"）
+     */
+    REQUESTER,
+
+    /**
+     * 撤销环上最晚获取的锁，其持有者再次操作时返回"锁因死锁被撤销"；
+     * 该锁正被其他线程访问时退回为拒绝请求
+     */
+    YOUNGEST
+}
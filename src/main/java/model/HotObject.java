@@ -0,0 +1,15 @@
+package model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * 热点对象统计项
+ */
+@Data
+@AllArgsConstructor
+public class HotObject {
+    private String objectId;
+    private double count;               // 衰减后的估计值（可能偏大）
+    private double error;              // 估计值的最大高估量
+}
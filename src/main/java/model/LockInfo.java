@@ -1,34 +1,52 @@
 package model;
 
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
 
 /**
  * 锁信息
+ * Token以long编码保存，动作与操作者ID为共享的字典实例；
+ * 最大持有时间由对象策略决定，不在每个锁上保存；
+ * 相容动作同时持有对象时，各持有者的锁经next串成链，各自保有Token与租约
  */
 @Data
 public class LockInfo {
-    private String token;              // 锁Token
+    private long token;                // 锁Token（编码后）
     private String action;             // 执行的动作
     private String ownerId;            // 操作者ID（用action作为标识）
-    private long acquireTime;          // 获取时间
-    private long lastRefreshTime;      // 最后刷新时间
-    private long maxHoldTime;          // 最大持有时间(ms)，默认30秒
+    private long acquireTime;          // 获取时间（服务时钟）
+    private long lastRefreshTime;      // 最后刷新时间（服务时钟）
     private boolean pendingClaim;      // 待认领标志（自动分配但未被认领）
+    private int lease;                 // 自适应租约(ms)，0表示使用策略的最大持有时间
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private LockInfo next;             // 下一个共享持有者（无则为null）
 
-    public boolean isExpired() {
-        return System.currentTimeMillis() - lastRefreshTime > maxHoldTime;
+    /**
+     * @param maxHoldTime 最大持有时间(ms)，待认领状态下为认领时限
+     * @param now 当前时间(ms)
+     */
+    public boolean isExpired(long maxHoldTime, long now) {
+        return now - lastRefreshTime > maxHoldTime;
     }
 
-    public void refresh() {
-        this.lastRefreshTime = System.currentTimeMillis();
+    public void refresh(long now) {
+        this.lastRefreshTime = now;
+    }
+
+    /**
+     * 绑定的会话（普通锁没有会话，见 {@link SessionLockInfo}）
+     */
+    public Session getSession() {
+        return null;
     }
 
     /**
      * 认领锁（将待认领状态转为正式持有）
      */
-    public void claim() {
+    public void claim(long now) {
         this.pendingClaim = false;
-        this.lastRefreshTime = System.currentTimeMillis();
+        this.lastRefreshTime = now;
     }
 }
-
@@ -0,0 +1,69 @@
+package model;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 对象状态快照（用于迁移与复制）
+ * 时间均以相对时长保存，导入方按自身时钟还原，不依赖节点间时钟一致
+ */
+@Data
+public class ObjectSnapshot {
+    private String objectId;
+    private int readCount;                 // 当前读操作数量
+    private Map<String, String> readTokens = new LinkedHashMap<>(); // 读Token -> 操作者（其余读操作只计数）
+
+    // 当前锁（lockToken为null表示空闲）
+    private String lockToken;
+    private String lockAction;
+    private String lockOwnerId;
+    private long lockHeldMillis;           // 已持有时长
+    private long lockIdleMillis;           // 距最后刷新的时长
+    private boolean lockPendingClaim;
+    private String lockSessionId;          // 锁绑定的会话（无则为null）
+    private List<Holder> sharedHolders = new ArrayList<>(); // 与当前锁同时持有的相容动作的锁
+
+    private List<Waiter> waiters = new ArrayList<>(); // 等待请求（按入队顺序）
+    private List<SessionLease> sessions = new ArrayList<>(); // 锁与等待请求绑定的会话
+
+    /**
+     * 共享持有者快照
+     */
+    @Data
+    public static class Holder {
+        private String token;
+        private String action;
+        private String ownerId;
+        private long heldMillis;           // 已持有时长
+        private long idleMillis;           // 距最后刷新的时长
+        private boolean pendingClaim;
+        private String sessionId;          // 绑定的会话（无则为null）
+    }
+
+    /**
+     * 等待请求快照
+     */
+    @Data
+    public static class Waiter {
+        private String action;
+        private String operatorId;
+        private long waitedMillis;         // 已等待时长
+        private String sessionId;          // 绑定的会话（无则为null）
+    }
+
+    /**
+     * 会话租约快照
+     * 导入方没有该会话时据此重建，之后由导入方接收心跳
+     */
+    @Data
+    public static class SessionLease {
+        private String sessionId;
+        private String operatorId;
+        private long ttl;                  // 心跳超时时间(ms)
+        private long idleMillis;           // 距最后心跳的时长
+    }
+}
@@ -1,6 +1,7 @@
 package model;
+
 /**
- * 优先策略枚举
+ * 优先策略枚举（内置调度器，对应的调度器见 service.scheduler.PrioritySchedulers）
  */
 public enum PriorityStrategy {
     /**
@@ -13,4 +14,3 @@ public enum PriorityStrategy {
      */
     SAME_ACTION_FIRST
 }
-
@@ -0,0 +1,68 @@
+package model;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 会话
+ * 操作者通过会话获取的锁和排队请求绑定到会话，由一次心跳统一续期；
+ * 会话过期或关闭时，绑定的锁全部释放、排队请求全部移除
+ */
+@Getter
+public class Session {
+    private final String sessionId;
+    private final String operatorId;
+    private final long ttl;                  // 心跳超时时间(ms)
+    private volatile long lastHeartbeat;     // 最后心跳时间（服务时钟）
+    private volatile boolean closed;
+
+    // 绑定了锁或排队请求的对象及绑定数量
+    @Getter(AccessLevel.NONE)
+    private final ConcurrentHashMap<String, Integer> boundObjects = new ConcurrentHashMap<>();
+
+    public Session(String sessionId, String operatorId, long ttl, long now) {
+        this.sessionId = sessionId;
+        this.operatorId = operatorId;
+        this.ttl = ttl;
+        this.lastHeartbeat = now;
+    }
+
+    /**
+     * @param now 当前时间(ms)
+     */
+    public boolean isExpired(long now) {
+        return closed || now - lastHeartbeat > ttl;
+    }
+
+    public void heartbeat(long now) {
+        this.lastHeartbeat = now;
+    }
+
+    public void close() {
+        this.closed = true;
+    }
+
+    /**
+     * 对象上新增一个绑定（锁或排队请求）
+     */
+    public void bind(String objectId) {
+        boundObjects.merge(objectId, 1, Integer::sum);
+    }
+
+    /**
+     * 对象上移除一个绑定，绑定数归零时不再记录该对象
+     */
+    public void unbind(String objectId) {
+        boundObjects.computeIfPresent(objectId, (k, count) -> count > 1 ? count - 1 : null);
+    }
+
+    /**
+     * 当前绑定了锁或排队请求的对象
+     */
+    public Set<String> getBoundObjects() {
+        return boundObjects.keySet();
+    }
+}
@@ -0,0 +1,25 @@
+package model;
+
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+
+/**
+ * 绑定会话的锁
+ * 只有通过会话获取的锁使用此类，普通锁不因会话增加内存占用
+ */
+@ToString(callSuper = true)
+@EqualsAndHashCode(callSuper = true)
+public class SessionLockInfo extends LockInfo {
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private final Session session;
+
+    public SessionLockInfo(Session session) {
+        this.session = session;
+    }
+
+    @Override
+    public Session getSession() {
+        return session;
+    }
+}
@@ -0,0 +1,32 @@
+package model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 对象状态变更
+ * 携带变更后的完整对象状态，接收方按快照覆盖即可，重复或合并后的变更依然幂等
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StateTransition {
+
+    public enum Type {
+        ACQUIRE,    // 获取锁
+        REFRESH,    // 刷新锁
+        CLAIM,      // 认领自动分配的锁
+        EXIT,       // 释放锁
+        EXPIRE,     // 锁超时释放
+        ENQUEUE,    // 进入等待队列
+        READ,       // 读操作进入或退出
+        TRANSFER,   // 锁转交给指定操作者
+        UPGRADE,    // 读操作升级为写锁
+        DOWNGRADE,  // 写锁降级为读操作
+        DEQUEUE     // 排队请求被移除（会话释放、锁转交）
+    }
+
+    private Type type;
+    private ObjectSnapshot snapshot;
+}
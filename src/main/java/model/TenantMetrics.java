@@ -0,0 +1,17 @@
+package model;
+
+import lombok.Data;
+
+/**
+ * 租户运行指标
+ */
+@Data
+public class TenantMetrics {
+    private String tenantId;
+    private int objectCount;                // 当前对象数量
+    private int waiterCount;                // 当前等待者数量
+    private long operations;                // 累计操作数（含被拒绝的）
+    private long rateLimited;               // 因频率限制被拒绝的操作数
+    private long objectLimited;             // 因对象数量限制被拒绝的操作数
+    private long waiterLimited;             // 因等待者数量限制被拒绝的操作数
+}
@@ -0,0 +1,17 @@
+package model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 租户配额（0表示不限制）
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TenantQuota {
+    private int maxObjects;             // 活跃对象数量上限
+    private int maxWaiters;             // 等待者总数上限
+    private double maxOpsPerSecond;     // 每秒操作数上限（允许一秒的突发）
+}
@@ -1,6 +1,8 @@
 package model;
 
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
 
 /**
  * 等待队列项
@@ -8,14 +10,26 @@ import lombok.Data;
 
 @Data
 public class WaitingRequest {
-    private String requestId;          // 请求ID
+    private long requestId;            // 请求ID（服务内递增序号）
     private String action;             // 请求动作
     private String operatorId;         // 操作者ID（用于匹配锁的持有者）
-    private long enqueueTime;          // 入队时间
-    private long maxWaitTime;          // 最大等待时间(ms)，默认5分钟
+    private long enqueueTime;          // 入队时间（服务时钟）
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private Session session;           // 绑定的会话（无则为null）
 
-    public boolean isTimeout() {
-        return System.currentTimeMillis() - enqueueTime > maxWaitTime;
+    /**
+     * @param maxWaitTime 最大等待时间(ms)
+     * @param now 当前时间(ms)
+     */
+    public boolean isTimeout(long maxWaitTime, long now) {
+        return now - enqueueTime > maxWaitTime;
     }
-}
 
+    /**
+     * 等待超时或绑定的会话已过期
+     */
+    public boolean isAbandoned(long maxWaitTime, long now) {
+        return isTimeout(maxWaitTime, now) || (session != null && session.isExpired(now));
+    }
+}
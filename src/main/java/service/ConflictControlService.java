@@ -2,9 +2,12 @@ package service;
 
 import model.OperationResult;
 import model.PriorityStrategy;
+import org.slf4j.LoggerFactory;
+import service.scheduler.PriorityScheduler;
 
 /**
  * 冲突控制管理服务接口
+ * 扩展功能提供默认实现：不支持的调用返回"不支持的操作"（查询返回-1），不支持的设置被忽略并记录警告
  */
 public interface ConflictControlService {
 
@@ -31,6 +34,15 @@ public interface ConflictControlService {
      */
     void setPriorityStrategy(PriorityStrategy strategy);
 
+    /**
+     * 设置优先调度器（自定义调度策略）
+     *
+     * @param scheduler 优先调度器，内置实现包括PrioritySchedulers、PriorityClassScheduler、WeightedFairScheduler
+     */
+    default void setPriorityScheduler(PriorityScheduler scheduler) {
+        LoggerFactory.getLogger(getClass()).warn("不支持自定义调度器，设置已忽略: {}", scheduler);
+    }
+
     /**
      * 设置配置参数
      *
@@ -39,4 +51,87 @@ public interface ConflictControlService {
      * @param maxWaitTime 最大等待时间(ms)（默认5分钟）
      */
     void setConfiguration(int maxQueueSize, long lockMaxHoldTime, long maxWaitTime);
+
+    /**
+     * 设置对象策略（按objectId前缀匹配，取最长前缀）
+     * 策略变更对已存在的对象同样生效，包括当前持有的锁
+     *
+     * @param objectIdPrefix objectId前缀（空字符串匹配所有对象）
+     * @param policy 对象策略，未设置的字段沿用全局配置
+     */
+    default void setObjectPolicy(String objectIdPrefix, ObjectPolicy policy) {
+        LoggerFactory.getLogger(getClass()).warn("不支持对象策略，设置已忽略: prefix={}", objectIdPrefix);
+    }
+
+    /**
+     * 移除对象策略
+     *
+     * @param objectIdPrefix objectId前缀
+     */
+    default void removeObjectPolicy(String objectIdPrefix) {
+        LoggerFactory.getLogger(getClass()).warn("不支持对象策略，移除已忽略: prefix={}", objectIdPrefix);
+    }
+
+    /**
+     * 读取对象版本（乐观模式）
+     * 读取后在本地完成修改，再以该版本调用 {@link #commit}，无需获取、刷新和释放锁
+     *
+     * @param objectId 操作对象ID
+     * @return 当前版本；对象正被锁定、处于悲观锁定模式或未启用乐观模式时返回-1，此时应通过operate加锁
+     */
+    default long readVersion(String objectId) {
+        return -1;
+    }
+
+    /**
+     * 提交修改（乐观模式）
+     * 对象未被锁定且当前版本等于expectedVersion时递增版本；冲突反复发生的对象自动切换为悲观锁定
+     *
+     * @param objectId 操作对象ID
+     * @param expectedVersion readVersion读取的版本
+     * @param operatorId 操作者唯一标识
+     * @return 操作结果，成功时token为新版本号；版本不一致时原因为"版本冲突"
+     */
+    default OperationResult commit(String objectId, long expectedVersion, String operatorId) {
+        return OperationResult.fail("不支持的操作");
+    }
+
+    /**
+     * 将持有的写锁直接转交给指定操作者（不经过等待队列）
+     * 转交后锁处于待认领状态，目标操作者以空Token调用operate即可认领
+     *
+     * @param objectId 操作对象ID
+     * @param token 当前持有的Token
+     * @param operatorId 当前持有者（须与Token的持有者一致）
+     * @param targetOperatorId 接收锁的操作者
+     * @return 操作结果，成功时token为转交后的新Token（与目标操作者认领时获得的Token相同），原Token失效
+     */
+    default OperationResult transfer(String objectId, String token, String operatorId, String targetOperatorId) {
+        return OperationResult.fail("不支持的操作");
+    }
+
+    /**
+     * 将读操作升级为写锁（仅当调用者是唯一的读操作且对象未被锁定时）
+     *
+     * @param objectId 操作对象ID
+     * @param readToken 读操作Token（须是发放给该操作者的读Token，升级后失效）
+     * @param action 写操作动作
+     * @param operatorId 操作者唯一标识
+     * @return 操作结果，成功时token为写锁Token，读操作同时结束
+     */
+    default OperationResult upgrade(String objectId, String readToken, String action, String operatorId) {
+        return OperationResult.fail("不支持的操作");
+    }
+
+    /**
+     * 将写锁降级为读操作，写锁交给等待队列中的下一个操作者
+     *
+     * @param objectId 操作对象ID
+     * @param token 当前持有的Token
+     * @param operatorId 当前持有者
+     * @return 操作结果，成功时token为读操作Token
+     */
+    default OperationResult downgrade(String objectId, String token, String operatorId) {
+        return OperationResult.fail("不支持的操作");
+    }
 }
@@ -0,0 +1,35 @@
+package service;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import service.scheduler.PriorityScheduler;
+
+/**
+ * 对象策略（按objectId前缀配置）
+ * 字段为null表示沿用全局配置
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ObjectPolicy {
+    private Long lockMaxHoldTime;              // 锁最大持有时间(ms)
+    private Long maxClaimTime;                 // 待认领锁的最长保留时间(ms)，默认同lockMaxHoldTime
+    private Integer maxQueueSize;              // 最大队列容量
+    private PriorityScheduler priorityScheduler; // 优先调度器（内置策略见PrioritySchedulers）
+
+    /**
+     * 用默认策略补全未设置的字段，返回新的策略对象
+     */
+    public ObjectPolicy withDefaults(ObjectPolicy defaults) {
+        ObjectPolicy merged = new ObjectPolicy();
+        merged.setLockMaxHoldTime(lockMaxHoldTime != null ? lockMaxHoldTime : defaults.getLockMaxHoldTime());
+        merged.setMaxClaimTime(maxClaimTime != null ? maxClaimTime : defaults.getMaxClaimTime());
+        merged.setMaxQueueSize(maxQueueSize != null ? maxQueueSize : defaults.getMaxQueueSize());
+        merged.setPriorityScheduler(priorityScheduler != null ? priorityScheduler : defaults.getPriorityScheduler());
+        if (merged.getMaxClaimTime() == null) {
+            merged.setMaxClaimTime(merged.getLockMaxHoldTime());
+        }
+        return merged;
+    }
+}
@@ -0,0 +1,13 @@
+package service.clock;
+
+/**
+ * 时间源
+ * 返回单调递增的毫秒数，起点任意，只用于计算时间间隔，不受系统时间调整影响
+ */
+public interface Clock {
+
+    /**
+     * 当前时间(ms)
+     */
+    long millis();
+}
@@ -0,0 +1,75 @@
+package service.clock;
+
+import java.io.Closeable;
+
+/**
+ * 粗粒度时钟
+ * 后台线程按固定间隔读取单调时钟并缓存，读取只是一次volatile读，适合热路径上的频繁调用；
+ * 精度为更新间隔
+ */
+public final class CoarseClock implements Clock, Closeable {
+
+    private static volatile CoarseClock shared;
+
+    private final long resolutionMillis;
+    private volatile long now;
+    private volatile boolean closed;
+
+    /**
+     * @param resolutionMillis 更新间隔(ms)
+     */
+    public CoarseClock(long resolutionMillis) {
+        this.resolutionMillis = resolutionMillis;
+        this.now = MonotonicClock.INSTANCE.millis();
+        Thread ticker = new Thread(this::tick, "coarse-clock");
+        ticker.setDaemon(true);
+        ticker.start();
+    }
+
+    /**
+     * 进程内共享的1ms精度时钟（首次调用时启动）
+     */
+    public static CoarseClock shared() {
+        CoarseClock clock = shared;
+        if (clock == null) {
+            synchronized (CoarseClock.class) {
+                clock = shared;
+                if (clock == null) {
+                    clock = new CoarseClock(1);
+                    shared = clock;
+                }
+            }
+        }
+        return clock;
+    }
+
+    @Override
+    public long millis() {
+        return now;
+    }
+
+    /**
+     * 停止更新（后台线程在下一次更新时退出）
+     */
+    @Override
+    public void close() {
+        closed = true;
+    }
+
+    private void tick() {
+        while (!closed) {
+            now = MonotonicClock.INSTANCE.millis();
+            try {
+                Thread.sleep(resolutionMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "CoarseClock(" + resolutionMillis + "ms)";
+    }
+}
@@ -0,0 +1,22 @@
+package service.clock;
+
+/**
+ * 基于 {@link System#nanoTime()} 的单调时钟
+ */
+public final class MonotonicClock implements Clock {
+
+    public static final MonotonicClock INSTANCE = new MonotonicClock();
+
+    private MonotonicClock() {
+    }
+
+    @Override
+    public long millis() {
+        return System.nanoTime() / 1_000_000;
+    }
+
+    @Override
+    public String toString() {
+        return "MonotonicClock";
+    }
+}
@@ -0,0 +1,41 @@
+package service.clock;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 手动推进的虚拟时钟，用于测试和基准测试中模拟时间流逝而无需等待
+ */
+public final class VirtualClock implements Clock {
+
+    private final AtomicLong now;
+
+    public VirtualClock() {
+        this(0);
+    }
+
+    public VirtualClock(long startMillis) {
+        this.now = new AtomicLong(startMillis);
+    }
+
+    @Override
+    public long millis() {
+        return now.get();
+    }
+
+    /**
+     * 推进时间
+     *
+     * @return 推进后的时间
+     */
+    public long advance(long millis) {
+        if (millis < 0) {
+            throw new IllegalArgumentException("时间不能倒退: " + millis);
+        }
+        return now.addAndGet(millis);
+    }
+
+    @Override
+    public String toString() {
+        return "VirtualClock(" + now.get() + ")";
+    }
+}
@@ -0,0 +1,111 @@
+package service.cluster;
+
+import model.OperationResult;
+import model.PriorityStrategy;
+import service.ConflictControlService;
+import service.ObjectPolicy;
+import service.impl.ConflictControlServiceImpl;
+import service.scheduler.PriorityScheduler;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 集群节点
+ * 持有本节点负责分区的对象状态；作为服务入口时，非本节点负责的请求转发给归属节点，
+ * 配置变更作用于整个集群
+ */
+public class ClusterNode implements ConflictControlService {
+
+    private final String nodeId;
+    private final ConflictControlServiceImpl localService;
+    private final ClusteredConflictControlService cluster;
+    private final LongAdder forwardedRequests = new LongAdder();
+
+    ClusterNode(String nodeId, ConflictControlServiceImpl localService, ClusteredConflictControlService cluster) {
+        this.nodeId = nodeId;
+        this.localService = localService;
+        this.cluster = cluster;
+    }
+
+    @Override
+    public OperationResult operate(String objectId, String action, String token, String operatorId) {
+        return cluster.route(this, objectId, action, token, operatorId);
+    }
+
+    @Override
+    public long readVersion(String objectId) {
+        return cluster.readVersion(this, objectId);
+    }
+
+    @Override
+    public OperationResult commit(String objectId, long expectedVersion, String operatorId) {
+        return cluster.commit(this, objectId, expectedVersion, operatorId);
+    }
+
+    @Override
+    public OperationResult transfer(String objectId, String token, String operatorId, String targetOperatorId) {
+        return cluster.transfer(this, objectId, token, operatorId, targetOperatorId);
+    }
+
+    @Override
+    public OperationResult upgrade(String objectId, String readToken, String action, String operatorId) {
+        return cluster.upgrade(this, objectId, readToken, action, operatorId);
+    }
+
+    @Override
+    public OperationResult downgrade(String objectId, String token, String operatorId) {
+        return cluster.downgrade(this, objectId, token, operatorId);
+    }
+
+    @Override
+    public void setPriorityStrategy(PriorityStrategy strategy) {
+        cluster.setPriorityStrategy(strategy);
+    }
+
+    @Override
+    public void setPriorityScheduler(PriorityScheduler scheduler) {
+        cluster.setPriorityScheduler(scheduler);
+    }
+
+    @Override
+    public void setConfiguration(int maxQueueSize, long lockMaxHoldTime, long maxWaitTime) {
+        cluster.setConfiguration(maxQueueSize, lockMaxHoldTime, maxWaitTime);
+    }
+
+    @Override
+    public void setObjectPolicy(String objectIdPrefix, ObjectPolicy policy) {
+        cluster.setObjectPolicy(objectIdPrefix, policy);
+    }
+
+    @Override
+    public void removeObjectPolicy(String objectIdPrefix) {
+        cluster.removeObjectPolicy(objectIdPrefix);
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    /**
+     * 本节点的本地服务（只包含本节点负责的对象）
+     */
+    public ConflictControlServiceImpl getLocalService() {
+        return localService;
+    }
+
+    /**
+     * 经本节点转发到其他节点的请求数
+     */
+    public long getForwardedRequests() {
+        return forwardedRequests.sum();
+    }
+
+    void recordForward() {
+        forwardedRequests.increment();
+    }
+
+    @Override
+    public String toString() {
+        return "ClusterNode(" + nodeId + ")";
+    }
+}
@@ -0,0 +1,488 @@
+package service.cluster;
+
+import model.DeadlockVictimPolicy;
+import model.ObjectSnapshot;
+import model.OperationResult;
+import model.PriorityStrategy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import service.ConflictControlService;
+import service.ObjectPolicy;
+import service.impl.ConflictControlServiceImpl;
+import service.impl.Hashing;
+import service.scheduler.PriorityScheduler;
+import service.scheduler.PrioritySchedulers;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+/**
+ * 分区集群（智能客户端）
+ * objectId通过一致性哈希环分区到各节点，每个节点只持有自己分区的对象状态，请求直接路由到归属节点；
+ * 节点加入或离开时，改变归属的对象连同当前锁和等待队列一起迁移到新节点。
+ * 请求按只读的路由快照路由，不与成员变更互斥；迁移按objectId哈希区间逐个进行，
+ * 只有正在迁移的区间短暂暂停，已迁移区间的请求转发到新归属节点，全部完成后切换到新环。
+ * 迁移完成后持有的Token继续有效
+ */
+public class ClusteredConflictControlService implements ConflictControlService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ClusteredConflictControlService.class);
+
+    // 迁移区间数（按objectId哈希的高位划分）
+    private static final int RANGE_BITS = 6;
+    private static final int RANGES = 1 << RANGE_BITS;
+
+    // 当前路由（只读快照，成员变更时整体替换）
+    private volatile Routing routing;
+
+    // 区间锁：请求持有所在区间的读锁，迁移区间时持有其写锁
+    private final ReentrantReadWriteLock[] rangeLocks = new ReentrantReadWriteLock[RANGES];
+
+    // 成员变更与配置变更互斥（不阻塞请求）
+    private final ReentrantLock membershipLock = new ReentrantLock();
+
+    // 集群配置（受membershipLock保护，新节点加入时同步）
+    private PriorityScheduler priorityScheduler = PrioritySchedulers.FIFO;
+    private int maxQueueSize = 5;
+    private long lockMaxHoldTime = 30000;
+    private long maxWaitTime = 300000;
+    private final Map<String, ObjectPolicy> objectPolicies = new LinkedHashMap<>();
+    private int optimisticConflictThreshold;
+    private final Map<Map.Entry<String, String>, Boolean> actionCompatibility = new LinkedHashMap<>();
+    private long adaptiveMinLease;
+    private DeadlockVictimPolicy deadlockVictimPolicy;
+    private int maxObjects;
+    private int maxWaiters;
+
+    public ClusteredConflictControlService() {
+        this(128);
+    }
+
+    /**
+     * @param virtualNodes 每个节点在哈希环上的虚拟节点数量
+     */
+    public ClusteredConflictControlService(int virtualNodes) {
+        this.routing = new Routing(new ConsistentHashRing<>(virtualNodes), null, Collections.emptyMap());
+        for (int i = 0; i < RANGES; i++) {
+            rangeLocks[i] = new ReentrantReadWriteLock();
+        }
+    }
+
+    /**
+     * 加入节点，并把归属改变的对象迁移到新节点
+     *
+     * @return 新节点
+     */
+    public ClusterNode addNode(String nodeId) {
+        membershipLock.lock();
+        try {
+            Routing current = routing;
+            if (current.nodes.containsKey(nodeId)) {
+                throw new IllegalArgumentException("节点已存在: " + nodeId);
+            }
+            ClusterNode node = new ClusterNode(nodeId, new ConflictControlServiceImpl(), this);
+            applyConfiguration(node.getLocalService());
+            ConsistentHashRing<ClusterNode> ring = current.ring.copy();
+            ring.add(nodeId, node);
+            Map<String, ClusterNode> nodes = new LinkedHashMap<>(current.nodes);
+            nodes.put(nodeId, node);
+
+            int migrated = migrate(current, new Routing(ring, current.ring, nodes));
+            logger.info("节点已加入: nodeId={}, 节点数={}, 迁移对象数={}", nodeId, nodes.size(), migrated);
+            return node;
+        } finally {
+            membershipLock.unlock();
+        }
+    }
+
+    /**
+     * 移除节点，并把其全部对象迁移到新的归属节点
+     *
+     * @return 迁移的对象数量
+     */
+    public int removeNode(String nodeId) {
+        membershipLock.lock();
+        try {
+            Routing current = routing;
+            if (!current.nodes.containsKey(nodeId)) {
+                throw new IllegalArgumentException("节点不存在: " + nodeId);
+            }
+            if (current.nodes.size() == 1) {
+                throw new IllegalStateException("不能移除最后一个节点");
+            }
+            ConsistentHashRing<ClusterNode> ring = current.ring.copy();
+            ring.remove(nodeId);
+            Map<String, ClusterNode> nodes = new LinkedHashMap<>(current.nodes);
+            nodes.remove(nodeId);
+
+            int migrated = migrate(current, new Routing(ring, current.ring, nodes));
+            logger.info("节点已移除: nodeId={}, 节点数={}, 迁移对象数={}", nodeId, nodes.size(), migrated);
+            return migrated;
+        } finally {
+            membershipLock.unlock();
+        }
+    }
+
+    /**
+     * 对象的归属节点（迁移期间按对象所在区间是否已迁移返回新旧归属节点）
+     */
+    public ClusterNode nodeFor(String objectId) {
+        return onOwner(null, objectId, null, owner -> owner);
+    }
+
+    public Collection<ClusterNode> getNodes() {
+        return new ArrayList<>(routing.nodes.values());
+    }
+
+    @Override
+    public OperationResult operate(String objectId, String action, String token, String operatorId) {
+        return route(null, objectId, action, token, operatorId);
+    }
+
+    /**
+     * 路由请求到归属节点
+     *
+     * @param entry 接收请求的节点（智能客户端直连时为null）
+     */
+    OperationResult route(ClusterNode entry, String objectId, String action, String token, String operatorId) {
+        if (objectId == null) {
+            return OperationResult.fail("参数不能为空");
+        }
+        return onOwner(entry, objectId, OperationResult.fail("集群无可用节点"),
+                owner -> owner.getLocalService().operate(objectId, action, token, operatorId));
+    }
+
+    @Override
+    public long readVersion(String objectId) {
+        return readVersion(null, objectId);
+    }
+
+    @Override
+    public OperationResult commit(String objectId, long expectedVersion, String operatorId) {
+        return commit(null, objectId, expectedVersion, operatorId);
+    }
+
+    @Override
+    public OperationResult transfer(String objectId, String token, String operatorId, String targetOperatorId) {
+        return transfer(null, objectId, token, operatorId, targetOperatorId);
+    }
+
+    @Override
+    public OperationResult upgrade(String objectId, String readToken, String action, String operatorId) {
+        return upgrade(null, objectId, readToken, action, operatorId);
+    }
+
+    @Override
+    public OperationResult downgrade(String objectId, String token, String operatorId) {
+        return downgrade(null, objectId, token, operatorId);
+    }
+
+    long readVersion(ClusterNode entry, String objectId) {
+        if (objectId == null) {
+            return -1;
+        }
+        return onOwner(entry, objectId, -1L, owner -> owner.getLocalService().readVersion(objectId));
+    }
+
+    OperationResult commit(ClusterNode entry, String objectId, long expectedVersion, String operatorId) {
+        if (objectId == null) {
+            return OperationResult.fail("参数不能为空");
+        }
+        return onOwner(entry, objectId, OperationResult.fail("集群无可用节点"),
+                owner -> owner.getLocalService().commit(objectId, expectedVersion, operatorId));
+    }
+
+    OperationResult transfer(ClusterNode entry, String objectId, String token, String operatorId,
+                             String targetOperatorId) {
+        if (objectId == null) {
+            return OperationResult.fail("参数不能为空");
+        }
+        return onOwner(entry, objectId, OperationResult.fail("集群无可用节点"),
+                owner -> owner.getLocalService().transfer(objectId, token, operatorId, targetOperatorId));
+    }
+
+    OperationResult upgrade(ClusterNode entry, String objectId, String readToken, String action, String operatorId) {
+        if (objectId == null) {
+            return OperationResult.fail("参数不能为空");
+        }
+        return onOwner(entry, objectId, OperationResult.fail("集群无可用节点"),
+                owner -> owner.getLocalService().upgrade(objectId, readToken, action, operatorId));
+    }
+
+    OperationResult downgrade(ClusterNode entry, String objectId, String token, String operatorId) {
+        if (objectId == null) {
+            return OperationResult.fail("参数不能为空");
+        }
+        return onOwner(entry, objectId, OperationResult.fail("集群无可用节点"),
+                owner -> owner.getLocalService().downgrade(objectId, token, operatorId));
+    }
+
+    /**
+     * 在归属节点上执行请求（持有所在区间的读锁，只在该区间迁移期间等待）
+     *
+     * @param entry 接收请求的节点（智能客户端直连时为null）
+     * @param noNode 集群无节点时的返回值
+     */
+    private <T> T onOwner(ClusterNode entry, String objectId, T noNode, Function<ClusterNode, T> request) {
+        long hash = Hashing.hash64(objectId);
+        int range = rangeOf(hash);
+        ReentrantReadWriteLock.ReadLock lock = rangeLocks[range].readLock();
+        lock.lock();
+        try {
+            // 须在持有区间锁后读取路由，保证看到该区间最新的迁移状态
+            ClusterNode owner = routing.nodeFor(hash, range);
+            if (owner == null) {
+                return noNode;
+            }
+            if (entry != null && entry != owner) {
+                entry.recordForward();
+            }
+            return request.apply(owner);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static int rangeOf(long hash) {
+        return (int) (hash >>> (Long.SIZE - RANGE_BITS));
+    }
+
+    @Override
+    public void setPriorityStrategy(PriorityStrategy strategy) {
+        setPriorityScheduler(PrioritySchedulers.of(strategy));
+    }
+
+    @Override
+    public void setPriorityScheduler(PriorityScheduler scheduler) {
+        membershipLock.lock();
+        try {
+            this.priorityScheduler = scheduler;
+            routing.nodes.values().forEach(node -> node.getLocalService().setPriorityScheduler(scheduler));
+        } finally {
+            membershipLock.unlock();
+        }
+    }
+
+    @Override
+    public void setConfiguration(int maxQueueSize, long lockMaxHoldTime, long maxWaitTime) {
+        membershipLock.lock();
+        try {
+            this.maxQueueSize = maxQueueSize;
+            this.lockMaxHoldTime = lockMaxHoldTime;
+            this.maxWaitTime = maxWaitTime;
+            routing.nodes.values().forEach(node ->
+                    node.getLocalService().setConfiguration(maxQueueSize, lockMaxHoldTime, maxWaitTime));
+        } finally {
+            membershipLock.unlock();
+        }
+    }
+
+    @Override
+    public void setObjectPolicy(String objectIdPrefix, ObjectPolicy policy) {
+        membershipLock.lock();
+        try {
+            objectPolicies.put(objectIdPrefix, policy);
+            routing.nodes.values().forEach(node -> node.getLocalService().setObjectPolicy(objectIdPrefix, policy));
+        } finally {
+            membershipLock.unlock();
+        }
+    }
+
+    @Override
+    public void removeObjectPolicy(String objectIdPrefix) {
+        membershipLock.lock();
+        try {
+            objectPolicies.remove(objectIdPrefix);
+            routing.nodes.values().forEach(node -> node.getLocalService().removeObjectPolicy(objectIdPrefix));
+        } finally {
+            membershipLock.unlock();
+        }
+    }
+
+    /**
+     * 设置各节点的乐观模式冲突阈值
+     *
+     * @see ConflictControlServiceImpl#setOptimisticConflictThreshold(int)
+     */
+    public void setOptimisticConflictThreshold(int conflictThreshold) {
+        membershipLock.lock();
+        try {
+            this.optimisticConflictThreshold = conflictThreshold;
+            routing.nodes.values().forEach(node ->
+                    node.getLocalService().setOptimisticConflictThreshold(conflictThreshold));
+        } finally {
+            membershipLock.unlock();
+        }
+    }
+
+    /**
+     * 设置各节点的动作相容性
+     *
+     * @see ConflictControlServiceImpl#setActionCompatible(String, String, boolean)
+     */
+    public void setActionCompatible(String action, String other, boolean compatible) {
+        membershipLock.lock();
+        try {
+            actionCompatibility.put(new AbstractMap.SimpleImmutableEntry<>(action, other), compatible);
+            routing.nodes.values().forEach(node ->
+                    node.getLocalService().setActionCompatible(action, other, compatible));
+        } finally {
+            membershipLock.unlock();
+        }
+    }
+
+    /**
+     * 设置各节点的自适应租约
+     *
+     * @see ConflictControlServiceImpl#setAdaptiveLease(long)
+     */
+    public void setAdaptiveLease(long minLease) {
+        membershipLock.lock();
+        try {
+            this.adaptiveMinLease = minLease;
+            routing.nodes.values().forEach(node -> node.getLocalService().setAdaptiveLease(minLease));
+        } finally {
+            membershipLock.unlock();
+        }
+    }
+
+    /**
+     * 设置各节点的死锁检测（只检测同一节点内的等待环）
+     *
+     * @see ConflictControlServiceImpl#setDeadlockDetection(DeadlockVictimPolicy)
+     */
+    public void setDeadlockDetection(DeadlockVictimPolicy victimPolicy) {
+        membershipLock.lock();
+        try {
+            this.deadlockVictimPolicy = victimPolicy;
+            routing.nodes.values().forEach(node -> node.getLocalService().setDeadlockDetection(victimPolicy));
+        } finally {
+            membershipLock.unlock();
+        }
+    }
+
+    /**
+     * 设置各节点的容量限制（上限按节点计算）
+     *
+     * @see ConflictControlServiceImpl#setCapacityLimits(int, int)
+     */
+    public void setCapacityLimits(int maxObjects, int maxWaiters) {
+        membershipLock.lock();
+        try {
+            this.maxObjects = maxObjects;
+            this.maxWaiters = maxWaiters;
+            routing.nodes.values().forEach(node -> node.getLocalService().setCapacityLimits(maxObjects, maxWaiters));
+        } finally {
+            membershipLock.unlock();
+        }
+    }
+
+    private void applyConfiguration(ConflictControlServiceImpl service) {
+        service.setConfiguration(maxQueueSize, lockMaxHoldTime, maxWaitTime);
+        service.setOptimisticConflictThreshold(optimisticConflictThreshold);
+        actionCompatibility.forEach((pair, compatible) ->
+                service.setActionCompatible(pair.getKey(), pair.getValue(), compatible));
+        service.setAdaptiveLease(adaptiveMinLease);
+        service.setDeadlockDetection(deadlockVictimPolicy);
+        service.setCapacityLimits(maxObjects, maxWaiters);
+        service.setPriorityScheduler(priorityScheduler);
+        objectPolicies.forEach(service::setObjectPolicy);
+    }
+
+    /**
+     * 切换到新路由（调用方须持有membershipLock）
+     * 各节点先开始记录新建的对象，再只扫描一次对象ID，把改变归属的对象按区间分组；
+     * 发布迁移中的路由后，逐个区间持有写锁，把分组中的对象与此后在该区间新建的对象迁移到新归属节点并标记该区间已迁移，
+     * 最后发布只含新环的路由
+     *
+     * @return 迁移的对象数量
+     */
+    private int migrate(Routing current, Routing next) {
+        Map<ClusterNode, Set<String>> created = new HashMap<>();
+        Map<ClusterNode, List<Set<String>>> moving = new HashMap<>();
+        try {
+            for (ClusterNode source : current.nodes.values()) {
+                Set<String> sink = ConcurrentHashMap.newKeySet();
+                source.getLocalService().recordCreatedObjects(sink);
+                created.put(source, sink);
+                List<Set<String>> byRange = new ArrayList<>(Collections.nCopies(RANGES, (Set<String>) null));
+                for (String objectId : source.getLocalService().getObjectIds()) {
+                    long hash = Hashing.hash64(objectId);
+                    if (next.ring.nodeForHash(hash) != source) {
+                        int range = rangeOf(hash);
+                        if (byRange.get(range) == null) {
+                            byRange.set(range, new LinkedHashSet<>());
+                        }
+                        byRange.get(range).add(objectId);
+                    }
+                }
+                moving.put(source, byRange);
+            }
+
+            routing = next;
+            int migrated = 0;
+            for (int range = 0; range < RANGES; range++) {
+                ReentrantReadWriteLock.WriteLock lock = rangeLocks[range].writeLock();
+                lock.lock();
+                try {
+                    for (ClusterNode source : current.nodes.values()) {
+                        Set<String> objectIds = moving.get(source).get(range);
+                        objectIds = objectIds != null ? objectIds : new LinkedHashSet<>();
+                        // 扫描后新建的对象：本区间及之前区间的记录已无用，取出本区间需要迁出的部分
+                        Iterator<String> iterator = created.get(source).iterator();
+                        while (iterator.hasNext()) {
+                            String objectId = iterator.next();
+                            long hash = Hashing.hash64(objectId);
+                            if (rangeOf(hash) <= range) {
+                                iterator.remove();
+                                if (rangeOf(hash) == range && next.ring.nodeForHash(hash) != source) {
+                                    objectIds.add(objectId);
+                                }
+                            }
+                        }
+                        if (objectIds.isEmpty()) {
+                            continue;
+                        }
+                        List<ObjectSnapshot> snapshots = source.getLocalService().exportObjects(objectIds, true);
+                        for (ObjectSnapshot snapshot : snapshots) {
+                            next.ring.nodeFor(snapshot.getObjectId()).getLocalService().importObject(snapshot);
+                        }
+                        migrated += snapshots.size();
+                    }
+                    next.migrated[range] = true;
+                } finally {
+                    lock.unlock();
+                }
+            }
+            routing = new Routing(next.ring, null, next.nodes);
+            return migrated;
+        } finally {
+            created.keySet().forEach(source -> source.getLocalService().recordCreatedObjects(null));
+        }
+    }
+
+    /**
+     * 路由快照
+     * 迁移期间同时持有新旧两个环，已迁移的区间按新环路由，其余区间按旧环路由
+     */
+    private static class Routing {
+        final ConsistentHashRing<ClusterNode> ring;
+        final ConsistentHashRing<ClusterNode> previous;     // 迁移前的环（无迁移时为null）
+        final Map<String, ClusterNode> nodes;
+        final boolean[] migrated = new boolean[RANGES];     // 受对应区间锁保护
+
+        Routing(ConsistentHashRing<ClusterNode> ring, ConsistentHashRing<ClusterNode> previous,
+                Map<String, ClusterNode> nodes) {
+            this.ring = ring;
+            this.previous = previous;
+            this.nodes = nodes;
+        }
+
+        ClusterNode nodeFor(long hash, int range) {
+            return previous == null || migrated[range] ? ring.nodeForHash(hash) : previous.nodeForHash(hash);
+        }
+    }
+}
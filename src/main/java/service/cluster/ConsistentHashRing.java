@@ -0,0 +1,67 @@
+package service.cluster;
+
+import service.impl.Hashing;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 一致性哈希环
+ * 每个节点在环上放置若干虚拟节点，键顺时针归属到第一个虚拟节点所在的节点；
+ * 节点加入或离开时只有相邻区间的键改变归属。非线程安全，并发读取时应在副本上修改后整体发布（见{@link #copy()}）
+ */
+public class ConsistentHashRing<N> {
+
+    private final int virtualNodes;
+    private final TreeMap<Long, N> ring = new TreeMap<>();
+
+    /**
+     * @param virtualNodes 每个节点的虚拟节点数量
+     */
+    public ConsistentHashRing(int virtualNodes) {
+        this.virtualNodes = virtualNodes;
+    }
+
+    /**
+     * 复制当前环
+     */
+    public ConsistentHashRing<N> copy() {
+        ConsistentHashRing<N> copy = new ConsistentHashRing<>(virtualNodes);
+        copy.ring.putAll(ring);
+        return copy;
+    }
+
+    public void add(String nodeId, N node) {
+        for (int i = 0; i < virtualNodes; i++) {
+            ring.put(Hashing.hash64(nodeId + "#" + i), node);
+        }
+    }
+
+    public void remove(String nodeId) {
+        for (int i = 0; i < virtualNodes; i++) {
+            ring.remove(Hashing.hash64(nodeId + "#" + i));
+        }
+    }
+
+    /**
+     * 键所属的节点，环为空时返回null
+     */
+    public N nodeFor(String key) {
+        return nodeForHash(Hashing.hash64(key));
+    }
+
+    /**
+     * 键哈希（{@link Hashing#hash64(String)}）所属的节点，环为空时返回null
+     */
+    public N nodeForHash(long hash) {
+        if (ring.isEmpty()) {
+            return null;
+        }
+        Map.Entry<Long, N> entry = ring.ceilingEntry(hash);
+        return entry != null ? entry.getValue() : ring.firstEntry().getValue();
+    }
+
+    public boolean isEmpty() {
+        return ring.isEmpty();
+    }
+}
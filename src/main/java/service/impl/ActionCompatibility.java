@@ -0,0 +1,51 @@
+package service.impl;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 动作相容矩阵
+ * 相容的动作可以同时持有同一对象的锁；未登记的动作两两互斥（同一动作自身也需登记才相容）。
+ * 写时复制，查询无锁
+ */
+class ActionCompatibility {
+
+    private volatile Map<String, Set<String>> matrix = Collections.emptyMap();
+
+    /**
+     * 设置两个动作是否相容（对称）
+     */
+    synchronized void set(String action, String other, boolean compatible) {
+        Map<String, Set<String>> updated = new HashMap<>();
+        matrix.forEach((key, value) -> updated.put(key, new HashSet<>(value)));
+        update(updated, action, other, compatible);
+        update(updated, other, action, compatible);
+        matrix = updated;
+    }
+
+    boolean isEmpty() {
+        return matrix.isEmpty();
+    }
+
+    boolean isCompatible(String action, String other) {
+        Set<String> compatible = matrix.get(action);
+        return compatible != null && compatible.contains(other);
+    }
+
+    private static void update(Map<String, Set<String>> matrix, String action, String other, boolean compatible) {
+        if (compatible) {
+            matrix.computeIfAbsent(action, k -> new HashSet<>()).add(other);
+            return;
+        }
+        Set<String> set = matrix.get(action);
+        if (set != null) {
+            set.remove(other);
+            if (set.isEmpty()) {
+                matrix.remove(action);
+            }
+        }
+    }
+}
@@ -1,12 +1,24 @@
 package service.impl;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
 
 import model.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import service.ConflictControlService;
+import service.ObjectPolicy;
+import service.clock.Clock;
+import service.clock.CoarseClock;
+import service.profiler.ContentionProfiler;
+import service.replication.StateTransitionListener;
+import service.scheduler.PriorityScheduler;
+import service.scheduler.PrioritySchedulers;
+import service.scheduler.WaitingQueue;
 
 /**
  * 冲突控制管理服务实现
@@ -15,25 +27,141 @@ public class ConflictControlServiceImpl implements ConflictControlService {
 
     private static final Logger logger = LoggerFactory.getLogger(ConflictControlServiceImpl.class);
 
-    // 操作对象状态映射
-    private final ConcurrentHashMap<String, ObjectState> objectStates = new ConcurrentHashMap<>();
+    // 死锁检测最多访问的操作者数量，限制排队路径上的检测开销
+    private static final int MAX_DEADLOCK_SEARCH = 4096;
+    private static final int MAX_REVOKED_TOKENS = 1024;
+    // 对象数量达到上限时清理空闲对象的最小间隔(ms)
+    private static final long CAPACITY_SWEEP_INTERVAL = 1000;
 
-    // 每个对象的读写锁
-    private final ConcurrentHashMap<String, ReentrantReadWriteLock> objectLocks = new ConcurrentHashMap<>();
+    // 操作对象状态映射（状态对象同时作为该对象的互斥锁）
+    private final ConcurrentHashMap<String, ObjectState> objectStates = new ConcurrentHashMap<>();
 
-    // 优先策略
-    private volatile PriorityStrategy priorityStrategy = PriorityStrategy.FIFO;
+    // 优先调度器
+    private volatile PriorityScheduler priorityScheduler = PrioritySchedulers.FIFO;
 
     // 配置参数
     private volatile int maxQueueSize = 5;
     private volatile long lockMaxHoldTime = 30000;  // 30秒
     private volatile long maxWaitTime = 300000;      // 5分钟
 
-    // Token生成器
-    private final TokenGenerator tokenGenerator = new TokenGenerator();
+    // 容量限制（0表示不限制）
+    private volatile int maxObjects;
+    private volatile int maxWaiters;
+
+    // 对象策略表（全局配置作为默认策略）
+    private final PolicyTable policyTable = new PolicyTable(
+            new ObjectPolicy(lockMaxHoldTime, null, maxQueueSize, priorityScheduler));
+
+    // 动作字典（锁和等待请求共享同一字符串实例）
+    private final StringDictionary dictionary = new StringDictionary();
+
+    // 操作者ID规范化表（取值无界，不再被引用的实例随GC移除）
+    private final WeakInterner operators = new WeakInterner();
+
+    // 等待请求序号
+    private final AtomicLong requestSequence = new AtomicLong();
+
+    // 当前等待请求总数
+    private final AtomicInteger waiterCount = new AtomicInteger();
+
+    // 乐观模式冲突阈值（0表示不启用乐观模式）
+    private volatile int optimisticConflictThreshold;
+
+    // 迁移期间记录新建对象的集合（为null时不记录）
+    private volatile Set<String> createdObjects;
+
+    // 下一次允许清理空闲对象的时间（服务时钟）
+    private final AtomicLong nextCapacitySweep = new AtomicLong();
+
+    // 打开的会话
+    private final ConcurrentHashMap<String, Session> sessions = new ConcurrentHashMap<>();
+
+    // 下一次由心跳顺带清理过期会话的时间（服务时钟）
+    private final AtomicLong nextSessionSweep = new AtomicLong();
+
+    // 动作相容矩阵（相容动作可共享持有对象）
+    private final ActionCompatibility actionCompatibility = new ActionCompatibility();
+
+    // 自适应租约估计（为null时使用策略的最大持有时间）
+    private volatile LeaseEstimator leaseEstimator;
+
+    // 等待图（为null时不检测死锁）与牺牲者策略
+    private volatile WaitForGraph waitForGraph;
+    private volatile DeadlockVictimPolicy deadlockVictimPolicy = DeadlockVictimPolicy.REQUESTER;
+    private final LongAdder deadlocksDetected = new LongAdder();
+
+    // 因死锁被撤销的锁Token（有界，供持有者再次操作时识别）
+    private final Map<Long, Boolean> revokedTokens = Collections.synchronizedMap(
+            new LinkedHashMap<Long, Boolean>() {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Long, Boolean> eldest) {
+                    return size() > MAX_REVOKED_TOKENS;
+                }
+            });
+
+    // 版本纪元：每次创建对象状态递增，作为版本高位，对象被移除后重建不会复用旧版本
+    private final AtomicLong versionEpoch = new AtomicLong();
+
+    // 时间源（所有持有与等待时间都按此时钟计算）
+    private final Clock clock;
+
+    // 竞争热点分析器
+    private final ContentionProfiler contentionProfiler;
+
+    // 状态变更监听器（用于复制）
+    private volatile StateTransitionListener transitionListener;
+
+    // 本线程最近一次状态变更的复制确认（在对象锁内登记，释放锁后等待）
+    private final ThreadLocal<CompletableFuture<Void>> pendingAck = new ThreadLocal<>();
+
+    /**
+     * 使用共享的粗粒度时钟
+     */
+    public ConflictControlServiceImpl() {
+        this(CoarseClock.shared());
+    }
+
+    /**
+     * @param clock 时间源（测试中可使用 {@link service.clock.VirtualClock} 推进时间）
+     */
+    public ConflictControlServiceImpl(Clock clock) {
+        this.clock = Objects.requireNonNull(clock);
+        this.contentionProfiler = new ContentionProfiler(32, 60000, clock);
+    }
 
     @Override
     public OperationResult operate(String objectId, String action, String token, String operatorId) {
+        OperationResult result = handleOperation(objectId, action, token, operatorId, null);
+        awaitReplication();
+        return result;
+    }
+
+    /**
+     * 在会话中操作：获取的锁和排队请求绑定到会话，由会话心跳统一续期
+     *
+     * @param sessionId 会话ID（为null时等同于不带会话的操作）
+     */
+    public OperationResult operate(String objectId, String action, String token, String operatorId, String sessionId) {
+        if (sessionId == null) {
+            return operate(objectId, action, token, operatorId);
+        }
+        if (objectId == null || action == null || operatorId == null) {
+            return OperationResult.fail("参数不能为空");
+        }
+        Session session = sessions.get(sessionId);
+        if (session == null || session.isExpired(clock.millis())) {
+            return OperationResult.fail("会话不存在或已过期");
+        }
+        if (!session.getOperatorId().equals(operatorId)) {
+            return OperationResult.fail("会话与操作者不匹配");
+        }
+        OperationResult result = handleOperation(objectId, action, token, operatorId, session);
+        awaitReplication();
+        return result;
+    }
+
+    private OperationResult handleOperation(String objectId, String action, String token, String operatorId,
+                                            Session session) {
         if (objectId == null || action == null || operatorId == null) {
             return OperationResult.fail("参数不能为空");
         }
@@ -41,113 +169,134 @@ public class ConflictControlServiceImpl implements ConflictControlService {
         logger.info("操作请求: objectId={}, action={}, token={}, operatorId={}",
                 objectId, action, token, operatorId);
 
-        // 获取或创建对象锁
-        ReentrantReadWriteLock rwLock = objectLocks.computeIfAbsent(
-                objectId, k -> new ReentrantReadWriteLock(true)
-        );
-
         // 判断是读操作还是写操作
         boolean isReadOperation = "read".equalsIgnoreCase(action);
         boolean isExitOperation = "exit".equalsIgnoreCase(action);
 
         if (isReadOperation) {
-            return handleReadOperation(objectId, rwLock);
+            return handleReadOperation(objectId, operatorId);
         } else if (isExitOperation) {
-            return handleExitOperation(objectId, token, rwLock);
+            return handleExitOperation(objectId, token);
         } else {
-            return handleWriteOperation(objectId, action, token, operatorId, rwLock);
+            return handleWriteOperation(objectId, action, token, operatorId, session);
         }
     }
 
     /**
      * 处理读操作（不互斥）
      */
-    private OperationResult handleReadOperation(String objectId, ReentrantReadWriteLock rwLock) {
-        rwLock.writeLock().lock();
+    private OperationResult handleReadOperation(String objectId, String operatorId) {
+        if (!admitObject(objectId)) {
+            return OperationResult.fail("对象数量已达上限");
+        }
+        ObjectState state = lockObjectState(objectId, true);
         try {
-            ObjectState state = getOrCreateObjectState(objectId);
+            applyPolicy(objectId, state);
 
             // 清理过期锁
-            cleanExpiredLock(state);
+            cleanExpiredLock(objectId, state);
 
-            // 读操作不需要Token，直接增加读计数
-            state.setReadCount(state.getReadCount() + 1);
+            // 读操作不需要Token，登记发放的读Token
+            String readToken = newReadToken();
+            state.addRead(readToken, operators.intern(operatorId), clock.millis());
+            emit(StateTransition.Type.READ, objectId, state);
 
             logger.info("读操作成功: objectId={}, 当前读数量={}", objectId, state.getReadCount());
-            return OperationResult.success("READ_" + UUID.randomUUID().toString().substring(0, 8));
+            return OperationResult.success(readToken);
 
         } finally {
-            rwLock.writeLock().unlock();
+            state.unlock();
         }
     }
 
     /**
      * 处理退出操作
      */
-    private OperationResult handleExitOperation(String objectId, String token, ReentrantReadWriteLock rwLock) {
-        rwLock.writeLock().lock();
+    private OperationResult handleExitOperation(String objectId, String token) {
+        ObjectState state = lockObjectState(objectId, false);
+        if (state == null) {
+            return OperationResult.fail("对象不存在");
+        }
         try {
-            ObjectState state = objectStates.get(objectId);
-            if (state == null) {
-                return OperationResult.fail("对象不存在");
-            }
+            applyPolicy(objectId, state);
 
             // 如果是读操作的退出
             if (token != null && token.startsWith("READ_")) {
-                if (state.getReadCount() > 0) {
-                    state.setReadCount(state.getReadCount() - 1);
+                if (state.removeRead(token)) {
+                    emit(StateTransition.Type.READ, objectId, state);
                     logger.info("读操作退出: objectId={}, 剩余读数量={}", objectId, state.getReadCount());
                 }
+                retireIfIdle(objectId, state);
                 return OperationResult.success(null);
             }
 
             // 写操作的退出
-            LockInfo currentLock = state.getCurrentLock();
-            if (currentLock == null) {
+            if (isRevoked(token)) {
+                return OperationResult.fail("锁因死锁被撤销");
+            }
+            if (state.getCurrentLock() == null) {
                 return OperationResult.fail("对象未被锁定");
             }
 
-            if (!currentLock.getToken().equals(token)) {
+            LockInfo heldLock = findLock(state, token);
+            if (heldLock == null) {
                 return OperationResult.fail("Token不匹配");
             }
 
-            // 释放锁
-            releaseLock(state);
+            // 释放锁（仍有共享持有者时对象保持锁定）
+            removeHolder(objectId, state, heldLock);
             logger.info("写操作退出，锁已释放: objectId={}, token={}", objectId, token);
 
             // 处理等待队列
-            processWaitingQueue(state, rwLock);
+            processWaitingQueue(objectId, state, heldLock.getAction());
+            relaxIfUncontended(objectId, state);
+            emit(StateTransition.Type.EXIT, objectId, state);
+            retireIfIdle(objectId, state);
 
             return OperationResult.success(null);
 
         } finally {
-            rwLock.writeLock().unlock();
+            state.unlock();
         }
     }
 
     /**
      * 处理写操作
      */
-    private OperationResult handleWriteOperation(String objectId, String action, String token,
-                                                 String operatorId, ReentrantReadWriteLock rwLock) {
-        rwLock.writeLock().lock();
+    private OperationResult handleWriteOperation(String objectId, String action, String token, String operatorId,
+                                                 Session session) {
+        if (!admitObject(objectId)) {
+            return OperationResult.fail("对象数量已达上限");
+        }
+        ObjectState state = lockObjectState(objectId, true);
         try {
-            ObjectState state = getOrCreateObjectState(objectId);
+            applyPolicy(objectId, state);
 
             // 清理过期锁
-            cleanExpiredLock(state);
+            cleanExpiredLock(objectId, state);
 
             LockInfo currentLock = state.getCurrentLock();
 
             // 情况1：对象空闲，首次操作
             if (currentLock == null && token == null) {
-                return acquireNewLock(state, action, operatorId);
+                return acquireNewLock(objectId, state, action, operatorId, session);
             }
 
             // 情况2：持有有效Token，刷新操作
-            if (currentLock != null && token != null && currentLock.getToken().equals(token)) {
-                currentLock.refresh();
-                currentLock.setAction(action);
+            LockInfo heldLock = token != null && currentLock != null ? findLock(state, token) : null;
+            if (heldLock != null) {
+                if (!action.equals(heldLock.getAction()) && !compatibleWithHolders(state, action, heldLock)) {
+                    return OperationResult.fail("动作与其他持有者冲突");
+                }
+                long now = clock.millis();
+                LeaseEstimator estimator = leaseEstimator;
+                if (estimator != null && !heldLock.isPendingClaim()) {
+                    estimator.record(heldLock.getOwnerId(), now - heldLock.getLastRefreshTime(), now);
+                    heldLock.setLease(estimator.leaseFor(heldLock.getOwnerId()));
+                }
+                heldLock.refresh(now);
+                heldLock.setAction(dictionary.intern(action));
+                emit(StateTransition.Type.REFRESH, objectId, state);
                 logger.info("Token刷新成功: objectId={}, action={}, token={}, operatorId={}",
                         objectId, action, token, operatorId);
                 return OperationResult.success(token);
@@ -156,48 +305,59 @@ public class ConflictControlServiceImpl implements ConflictControlService {
             // 情况3：Token不匹配，检查是否为待认领状态
             if (currentLock != null && token == null) {
                 // 检查操作者ID是否匹配
-                if (currentLock.isPendingClaim() && operatorId.equals(currentLock.getOwnerId())) {
+                LockInfo pendingLock = findPendingClaim(state, operatorId);
+                if (pendingLock != null) {
                     // 操作者ID匹配且锁处于待认领状态，允许认领
-                    currentLock.claim();
-                    String claimedToken = currentLock.getToken();
+                    pendingLock.claim(clock.millis());
+                    emit(StateTransition.Type.CLAIM, objectId, state);
+                    String claimedToken = TokenCodec.encode(pendingLock.getToken());
                     logger.info("锁认领成功: objectId={}, action={}, token={}, operatorId={}",
                             objectId, action, claimedToken, operatorId);
                     return OperationResult.success(claimedToken);
                 }
+
+                // 与全部持有者相容且无人排队时直接共享持有（有人排队时排在其后，避免互斥动作饿死）
+                if (state.getWaitingQueue() == null && compatibleWithHolders(state, action, null)) {
+                    LockInfo lockInfo = newLock(action, operatorId, false, session);
+                    addHolder(objectId, state, lockInfo);
+                    contentionProfiler.record(ContentionMetric.ACQUIRE, objectId, 1);
+                    emit(StateTransition.Type.ACQUIRE, objectId, state);
+                    String sharedToken = TokenCodec.encode(lockInfo.getToken());
+                    logger.info("共享持有锁: objectId={}, action={}, token={}, operatorId={}",
+                            objectId, action, sharedToken, operatorId);
+                    return OperationResult.success(sharedToken);
+                }
             }
 
             // 情况4：Token无效
             if (token != null) {
+                if (isRevoked(token)) {
+                    return OperationResult.fail("锁因死锁被撤销");
+                }
                 logger.warn("Token无效或已过期: objectId={}, token={}", objectId, token);
             }
 
             // 情况5：进入等待队列
-            return enqueueWaitingRequest(state, action, operatorId, objectId);
+            return enqueueWaitingRequest(state, action, operatorId, objectId, session);
 
         } finally {
-            rwLock.writeLock().unlock();
+            state.unlock();
         }
     }
 
     /**
      * 获取新锁
      */
-    private OperationResult acquireNewLock(ObjectState state, String action, String operatorId) {
-        String newToken = tokenGenerator.generate();
-        LockInfo lockInfo = new LockInfo();
-        lockInfo.setToken(newToken);
-        lockInfo.setAction(action);
-        lockInfo.setOwnerId(operatorId); // 使用传入的operatorId
-        long now = System.currentTimeMillis();
-        lockInfo.setAcquireTime(now);
-        lockInfo.setLastRefreshTime(now);
-        lockInfo.setMaxHoldTime(lockMaxHoldTime);
-        lockInfo.setPendingClaim(false); // 正常获取的锁，不需要认领
-
-        state.setCurrentLock(lockInfo);
-
+    private OperationResult acquireNewLock(String objectId, ObjectState state, String action, String operatorId,
+                                           Session session) {
+        LockInfo lockInfo = newLock(action, operatorId, false, session); // 正常获取的锁，不需要认领
+        addHolder(objectId, state, lockInfo);
+        contentionProfiler.record(ContentionMetric.ACQUIRE, objectId, 1);
+        emit(StateTransition.Type.ACQUIRE, objectId, state);
+
+        String newToken = TokenCodec.encode(lockInfo.getToken());
         logger.info("获取新锁: objectId={}, action={}, token={}, operatorId={}",
-                state.getObjectId(), action, newToken, operatorId);
+                objectId, action, newToken, operatorId);
 
         return OperationResult.success(newToken);
     }
@@ -205,46 +365,106 @@ public class ConflictControlServiceImpl implements ConflictControlService {
     /**
      * 自动分配锁（待认领状态）
      */
-    private void acquireNewLockWithPendingClaim(ObjectState state, String action, String operatorId) {
-        String newToken = tokenGenerator.generate();
-        LockInfo lockInfo = new LockInfo();
-        lockInfo.setToken(newToken);
-        lockInfo.setAction(action);
-        lockInfo.setOwnerId(operatorId); // 使用等待队列中的operatorId
-        long now = System.currentTimeMillis();
-        lockInfo.setAcquireTime(now);
-        lockInfo.setLastRefreshTime(now);
-        lockInfo.setMaxHoldTime(lockMaxHoldTime);
-        lockInfo.setPendingClaim(true); // 设置为待认领状态
-
-        state.setCurrentLock(lockInfo);
+    private void acquireNewLockWithPendingClaim(String objectId, ObjectState state, WaitingRequest request) {
+        // 设置为待认领状态，排队请求绑定的会话延续到锁上
+        LockInfo lockInfo = newLock(request.getAction(), request.getOperatorId(), true, request.getSession());
+        addHolder(objectId, state, lockInfo);
+        contentionProfiler.record(ContentionMetric.ACQUIRE, objectId, 1);
 
         logger.info("自动分配锁（待认领）: objectId={}, action={}, token={}, operatorId={}",
-                state.getObjectId(), action, newToken, operatorId);
+                objectId, request.getAction(), TokenCodec.encode(lockInfo.getToken()), request.getOperatorId());
+    }
+
+    private LockInfo newLock(String action, String operatorId, boolean pendingClaim, Session session) {
+        LockInfo lockInfo = session != null ? new SessionLockInfo(session) : new LockInfo();
+        lockInfo.setToken(TokenCodec.generate());
+        lockInfo.setAction(dictionary.intern(action));
+        lockInfo.setOwnerId(operators.intern(operatorId));
+        long now = clock.millis();
+        lockInfo.setAcquireTime(now);
+        lockInfo.setLastRefreshTime(now);
+        lockInfo.setPendingClaim(pendingClaim);
+        LeaseEstimator estimator = leaseEstimator;
+        if (estimator != null) {
+            lockInfo.setLease(estimator.leaseFor(lockInfo.getOwnerId()));
+        }
+        return lockInfo;
     }
 
     /**
      * 加入等待队列
      */
-    private OperationResult enqueueWaitingRequest(ObjectState state, String action, String operatorId, String objectId) {
-        Queue<WaitingRequest> queue = state.getWaitingQueue();
+    private OperationResult enqueueWaitingRequest(ObjectState state, String action, String operatorId, String objectId,
+                                                  Session session) {
+        WaitingQueue queue = state.getWaitingQueue();
+        if (queue == null) {
+            queue = state.getPolicy().getPriorityScheduler().newQueue();
+            state.setWaitingQueue(queue);
+        }
 
         // 清理超时的等待请求
-        queue.removeIf(WaitingRequest::isTimeout);
+        long maxWaitTime = this.maxWaitTime;
+        long now = clock.millis();
+        int queued = queue.size();
+        queue.removeIf(req -> {
+            boolean timeout = req.isAbandoned(maxWaitTime, now);
+            if (timeout) {
+                waiterRemoved(objectId, req);
+            }
+            return timeout;
+        });
+        waiterCount.addAndGet(queue.size() - queued);
 
-        if (queue.size() >= state.getMaxQueueSize()) {
+        int maxWaiters = this.maxWaiters;
+        if (maxWaiters > 0 && waiterCount.get() >= maxWaiters) {
+            logger.warn("等待者数量已达上限: objectId={}, maxWaiters={}", objectId, maxWaiters);
+            releaseQueueIfEmpty(objectId, state);
+            return OperationResult.fail("等待者数量已达上限");
+        }
+
+        if (queue.size() >= state.getPolicy().getMaxQueueSize()) {
             logger.warn("等待队列已满: objectId={}, queueSize={}", objectId, queue.size());
+            contentionProfiler.record(ContentionMetric.QUEUE_FULL, objectId, 1);
+            releaseQueueIfEmpty(objectId, state);
             return OperationResult.fail("等待队列已满");
         }
 
+        // 死锁检测：排队后是否形成等待环（等待图只跟踪有人排队的对象，在此登记持有者）；
+        // 无环时等待与搜索一并登记，同时排队的请求不会互相漏检
+        WaitForGraph graph = waitForGraph;
+        if (graph != null) {
+            LockInfo holder = state.getCurrentLock();
+            graph.setHolder(objectId, holder != null ? holder.getOwnerId() : null,
+                    holder != null ? holder.getAcquireTime() : 0);
+            List<String> cycle = graph.findCycleOrRegister(operatorId, objectId, MAX_DEADLOCK_SEARCH);
+            if (cycle != null) {
+                OperationResult resolved = resolveDeadlock(graph, cycle, state, action, operatorId, objectId, session);
+                if (resolved != null) {
+                    releaseQueueIfEmpty(objectId, state);
+                    return resolved;
+                }
+                // 牺牲者的锁已撤销，请求继续排队
+                graph.addWait(operatorId, objectId);
+            }
+        }
+
         WaitingRequest waitingRequest = new WaitingRequest();
-        waitingRequest.setRequestId(UUID.randomUUID().toString());
-        waitingRequest.setAction(action);
-        waitingRequest.setOperatorId(operatorId); // 使用传入的operatorId
-        waitingRequest.setEnqueueTime(System.currentTimeMillis());
-        waitingRequest.setMaxWaitTime(maxWaitTime);
+        waitingRequest.setRequestId(requestSequence.incrementAndGet());
+        waitingRequest.setAction(dictionary.intern(action));
+        waitingRequest.setOperatorId(operators.intern(operatorId)); // 使用传入的operatorId
+        waitingRequest.setEnqueueTime(now);
+        waitingRequest.setSession(session);
 
         queue.offer(waitingRequest);
+        waiterCount.incrementAndGet();
+        // 等待图中的等待已在死锁检测时登记
+        if (session != null) {
+            session.bind(objectId);
+        }
+        if (state.isPessimistic()) {
+            state.setConflictScore((byte) Math.min(state.getConflictScore() + 1, optimisticConflictThreshold));
+        }
+        emit(StateTransition.Type.ENQUEUE, objectId, state);
 
         int position = queue.size();
         logger.info("进入等待队列: objectId={}, action={}, operatorId={}, position={}",
@@ -256,79 +476,236 @@ public class ConflictControlServiceImpl implements ConflictControlService {
     /**
      * 释放锁
      */
-    private void releaseLock(ObjectState state) {
-        state.setCurrentLock(null);
+    private void releaseLock(String objectId, ObjectState state) {
+        for (LockInfo lock = state.getCurrentLock(); lock != null; lock = lock.getNext()) {
+            if (lock.getSession() != null) {
+                lock.getSession().unbind(objectId);
+            }
+        }
+        setLock(objectId, state, null);
+    }
+
+    /**
+     * 设置当前锁，并使版本奇偶与是否持有锁一致（加锁和解锁都会使已读取的版本失效）；
+     * 只有有人排队的对象才同步到等待图
+     */
+    private void setLock(String objectId, ObjectState state, LockInfo lockInfo) {
+        state.setCurrentLock(lockInfo);
+        WaitForGraph graph = waitForGraph;
+        if (graph != null && state.getWaitingQueue() != null) {
+            graph.setHolder(objectId, lockInfo != null ? lockInfo.getOwnerId() : null,
+                    lockInfo != null ? lockInfo.getAcquireTime() : 0);
+        }
+        boolean locked = (state.getVersion() & 1) != 0;
+        if (locked != (lockInfo != null)) {
+            state.setVersion(state.getVersion() + 1);
+        }
     }
 
     /**
      * 清理过期锁
      */
-    private void cleanExpiredLock(ObjectState state) {
-        LockInfo currentLock = state.getCurrentLock();
-        if (currentLock != null && currentLock.isExpired()) {
-            logger.warn("锁已超时自动释放: objectId={}, token={}",
-                    state.getObjectId(), currentLock.getToken());
-            releaseLock(state);
-            processWaitingQueue(state, null);
+    private void cleanExpiredLock(String objectId, ObjectState state) {
+        long now = clock.millis();
+        LockInfo expired = null;
+        for (LockInfo lock = state.getCurrentLock(); lock != null; ) {
+            LockInfo next = lock.getNext();
+            if (isLockExpired(state, lock, now)) {
+                logger.warn("锁已超时自动释放: objectId={}, token={}",
+                        objectId, TokenCodec.encode(lock.getToken()));
+                contentionProfiler.record(ContentionMetric.EXPIRATION, objectId, 1);
+                removeHolder(objectId, state, lock);
+                expired = lock;
+            }
+            lock = next;
+        }
+        if (expired != null) {
+            processWaitingQueue(objectId, state, expired.getAction());
+            relaxIfUncontended(objectId, state);
+            emit(StateTransition.Type.EXPIRE, objectId, state);
+        }
+    }
+
+    /**
+     * 按Token查找持有者的锁（调用方须持有对象锁）
+     */
+    private LockInfo findLock(ObjectState state, String token) {
+        long decoded = TokenCodec.decode(token);
+        for (LockInfo lock = state.getCurrentLock(); lock != null; lock = lock.getNext()) {
+            if (lock.getToken() == decoded) {
+                return lock;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 查找分配给操作者、尚未认领的锁（调用方须持有对象锁）
+     */
+    private LockInfo findPendingClaim(ObjectState state, String operatorId) {
+        for (LockInfo lock = state.getCurrentLock(); lock != null; lock = lock.getNext()) {
+            if (lock.isPendingClaim() && operatorId.equals(lock.getOwnerId())) {
+                return lock;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 动作是否与所有持有者（除exclude外）相容
+     */
+    private boolean compatibleWithHolders(ObjectState state, String action, LockInfo exclude) {
+        ActionCompatibility compatibility = actionCompatibility;
+        for (LockInfo lock = state.getCurrentLock(); lock != null; lock = lock.getNext()) {
+            if (lock != exclude && (compatibility.isEmpty() || !compatibility.isCompatible(action, lock.getAction()))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 加入持有者（对象空闲时即成为当前锁，否则追加到共享持有者链尾）
+     */
+    private void addHolder(String objectId, ObjectState state, LockInfo lockInfo) {
+        if (lockInfo.getSession() != null) {
+            lockInfo.getSession().bind(objectId);
+        }
+        LockInfo last = state.getCurrentLock();
+        if (last == null) {
+            setLock(objectId, state, lockInfo);
+            return;
         }
+        while (last.getNext() != null) {
+            last = last.getNext();
+        }
+        last.setNext(lockInfo);
+    }
+
+    /**
+     * 移除持有者（最后一个持有者移除后对象解锁）
+     */
+    private void removeHolder(String objectId, ObjectState state, LockInfo lockInfo) {
+        LockInfo head = state.getCurrentLock();
+        if (head == lockInfo) {
+            setLock(objectId, state, lockInfo.getNext());
+        } else {
+            LockInfo previous = head;
+            while (previous.getNext() != lockInfo) {
+                previous = previous.getNext();
+            }
+            previous.setNext(lockInfo.getNext());
+        }
+        lockInfo.setNext(null);
+        if (lockInfo.getSession() != null) {
+            lockInfo.getSession().unbind(objectId);
+        }
+    }
+
+    /**
+     * 锁是否已过期（绑定会话的锁随会话过期，待认领时仍受认领时限约束）
+     */
+    private boolean isLockExpired(ObjectState state, LockInfo lock, long now) {
+        Session session = lock.getSession();
+        if (session != null) {
+            if (session.isExpired(now)) {
+                return true;
+            }
+            if (!lock.isPendingClaim()) {
+                return false;
+            }
+        }
+        return lock.isExpired(maxHoldTime(state, lock), now);
+    }
+
+    /**
+     * 锁的最大持有时间（待认领状态下为认领时限，有自适应租约时取租约与策略上限的较小值）
+     */
+    private long maxHoldTime(ObjectState state, LockInfo lock) {
+        if (lock.isPendingClaim()) {
+            return state.getPolicy().getMaxClaimTime();
+        }
+        long maxHoldTime = state.getPolicy().getLockMaxHoldTime();
+        return lock.getLease() > 0 ? Math.min(lock.getLease(), maxHoldTime) : maxHoldTime;
     }
 
     /**
      * 处理等待队列
      * 自动分配锁给队列中的下一个操作者
      */
-    private void processWaitingQueue(ObjectState state, ReentrantReadWriteLock rwLock) {
-        Queue<WaitingRequest> queue = state.getWaitingQueue();
+    private void processWaitingQueue(String objectId, ObjectState state, String lastAction) {
+        WaitingQueue queue = state.getWaitingQueue();
+        if (queue == null) {
+            return;
+        }
 
         // 清理超时请求
+        long maxWaitTime = this.maxWaitTime;
+        long now = clock.millis();
+        int queued = queue.size();
         queue.removeIf(req -> {
-            boolean timeout = req.isTimeout();
+            boolean timeout = req.isAbandoned(maxWaitTime, now);
             if (timeout) {
                 logger.info("等待请求超时移除: objectId={}, action={}",
-                        state.getObjectId(), req.getAction());
+                        objectId, req.getAction());
+                waiterRemoved(objectId, req);
             }
             return timeout;
         });
 
-        if (queue.isEmpty()) {
-            return;
+        // 由优先调度器选出下一个请求（仍有共享持有者时不交接，避免相容动作持续加入使排队的互斥动作饿死）
+        WaitingRequest nextRequest = state.getCurrentLock() == null ? queue.poll(lastAction) : null;
+        waiterCount.addAndGet(queue.size() - queued);
+        if (nextRequest != null) {
+            waiterRemoved(objectId, nextRequest);
         }
 
-        // 根据优先策略获取下一个请求
-        WaitingRequest nextRequest = getNextRequest(queue, state.getCurrentLock());
-
         if (nextRequest != null) {
             logger.info("从等待队列自动分配锁: objectId={}, action={}, operatorId={}",
-                    state.getObjectId(), nextRequest.getAction(), nextRequest.getOperatorId());
+                    objectId, nextRequest.getAction(), nextRequest.getOperatorId());
+            contentionProfiler.record(ContentionMetric.WAIT_TIME, objectId,
+                    Math.max(0, now - nextRequest.getEnqueueTime()));
             // 自动分配锁，设置为待认领状态
-            acquireNewLockWithPendingClaim(state, nextRequest.getAction(), nextRequest.getOperatorId());
+            acquireNewLockWithPendingClaim(objectId, state, nextRequest);
+            grantCompatibleWaiters(objectId, state, queue, nextRequest.getAction(), now);
         }
+        releaseQueueIfEmpty(objectId, state);
     }
 
     /**
-     * 根据优先策略获取下一个请求
+     * 按调度器的出队顺序将与全部持有者相容的等待者一并分配锁（待认领状态），一次交接授予整组；
+     * 遇到第一个不相容的等待者即停止，不让后来的相容动作越过它
+     *
+     * @param lastAction 本次交接获得锁的动作
      */
-    private WaitingRequest getNextRequest(Queue<WaitingRequest> queue, LockInfo lastLock) {
-        if (priorityStrategy == PriorityStrategy.FIFO) {
-            return queue.poll();
-        } else if (priorityStrategy == PriorityStrategy.SAME_ACTION_FIRST) {
-            // 优先查找相同动作
-            if (lastLock != null) {
-                String lastAction = lastLock.getAction();
-                Iterator<WaitingRequest> iterator = queue.iterator();
-                while (iterator.hasNext()) {
-                    WaitingRequest req = iterator.next();
-                    if (req.getAction().equals(lastAction)) {
-                        iterator.remove();
-                        logger.info("相同动作优先: action={}", lastAction);
-                        return req;
-                    }
-                }
+    private void grantCompatibleWaiters(String objectId, ObjectState state, WaitingQueue queue,
+                                        String lastAction, long now) {
+        if (actionCompatibility.isEmpty()) {
+            return;
+        }
+        WaitingRequest request;
+        while ((request = queue.peek(lastAction)) != null
+                && compatibleWithHolders(state, request.getAction(), null)) {
+            queue.poll(lastAction);
+            waiterCount.decrementAndGet();
+            waiterRemoved(objectId, request);
+            contentionProfiler.record(ContentionMetric.WAIT_TIME, objectId,
+                    Math.max(0, now - request.getEnqueueTime()));
+            acquireNewLockWithPendingClaim(objectId, state, request);
+        }
+    }
+
+    /**
+     * 队列为空时释放队列对象，下次排队时再创建；等待图不再跟踪该对象的持有者
+     */
+    private void releaseQueueIfEmpty(String objectId, ObjectState state) {
+        if (state.getWaitingQueue() != null && state.getWaitingQueue().isEmpty()) {
+            state.setWaitingQueue(null);
+            WaitForGraph graph = waitForGraph;
+            if (graph != null) {
+                graph.setHolder(objectId, null, 0);
             }
-            // 没有相同动作，返回队首
-            return queue.poll();
         }
-        return queue.poll();
     }
 
     /**
@@ -337,19 +714,739 @@ public class ConflictControlServiceImpl implements ConflictControlService {
     private ObjectState getOrCreateObjectState(String objectId) {
         return objectStates.computeIfAbsent(objectId, k -> {
             ObjectState state = new ObjectState();
-            state.setObjectId(objectId);
-            state.setCurrentLock(null);
-            state.setReadCount(0);
-            state.setWaitingQueue(new LinkedList<>());
-            state.setMaxQueueSize(maxQueueSize);
+            state.setVersion(versionEpoch.incrementAndGet() << 32);
+            Set<String> created = createdObjects;
+            if (created != null) {
+                created.add(k);
+            }
             return state;
         });
     }
 
+    /**
+     * 获取并锁定对象状态
+     * 状态可能在等待锁期间被移出状态映射（如迁移到其他节点），此时重新获取
+     *
+     * @param create 不存在时是否创建
+     * @return 已锁定的对象状态，不存在且不创建时返回null
+     */
+    private ObjectState lockObjectState(String objectId, boolean create) {
+        while (true) {
+            ObjectState state = create ? getOrCreateObjectState(objectId) : objectStates.get(objectId);
+            if (state == null) {
+                return null;
+            }
+            state.lock();
+            if (!state.isRetired()) {
+                return state;
+            }
+            state.unlock();
+        }
+    }
+
+    @Override
+    public long readVersion(String objectId) {
+        if (objectId == null || optimisticConflictThreshold <= 0 || !admitObject(objectId)) {
+            return -1;
+        }
+        ObjectState state = lockObjectState(objectId, true);
+        try {
+            applyPolicy(objectId, state);
+            cleanExpiredLock(objectId, state);
+            long version = state.getVersion();
+            return state.isPessimistic() || (version & 1) != 0 ? -1 : version;
+        } finally {
+            state.unlock();
+        }
+    }
+
+    @Override
+    public OperationResult commit(String objectId, long expectedVersion, String operatorId) {
+        if (objectId == null || operatorId == null) {
+            return OperationResult.fail("参数不能为空");
+        }
+        int threshold = optimisticConflictThreshold;
+        if (threshold <= 0) {
+            return OperationResult.fail("不支持的操作");
+        }
+        ObjectState state = lockObjectState(objectId, false);
+        if (state == null) {
+            return OperationResult.fail("对象不存在");
+        }
+        try {
+            applyPolicy(objectId, state);
+            cleanExpiredLock(objectId, state);
+            if (state.isPessimistic()) {
+                return OperationResult.fail("对象处于悲观锁定模式");
+            }
+            if (state.getVersion() != expectedVersion) {
+                state.setConflictScore((byte) Math.min(state.getConflictScore() + 1, Byte.MAX_VALUE));
+                if (state.getConflictScore() >= threshold) {
+                    state.setPessimistic(true);
+                    logger.info("乐观提交冲突频繁，切换为悲观锁定: objectId={}, conflictScore={}",
+                            objectId, state.getConflictScore());
+                }
+                logger.info("版本冲突: objectId={}, expected={}, current={}, operatorId={}",
+                        objectId, expectedVersion, state.getVersion(), operatorId);
+                return OperationResult.fail("版本冲突");
+            }
+            long version = expectedVersion + 2;
+            state.setVersion(version);
+            state.setConflictScore((byte) Math.max(0, state.getConflictScore() - 1));
+            logger.info("乐观提交成功: objectId={}, version={}, operatorId={}", objectId, version, operatorId);
+            return OperationResult.success(String.valueOf(version));
+        } finally {
+            state.unlock();
+        }
+    }
+
+    @Override
+    public OperationResult transfer(String objectId, String token, String operatorId, String targetOperatorId) {
+        if (objectId == null || token == null || operatorId == null || targetOperatorId == null) {
+            return OperationResult.fail("参数不能为空");
+        }
+        ObjectState state = lockObjectState(objectId, false);
+        if (state == null) {
+            return OperationResult.fail("对象不存在");
+        }
+        try {
+            applyPolicy(objectId, state);
+            cleanExpiredLock(objectId, state);
+            OperationResult rejected = checkHolder(state, token, operatorId);
+            if (rejected != null) {
+                return rejected;
+            }
+            LockInfo heldLock = findLock(state, token);
+
+            // 目标操作者在本对象上的排队请求已无必要
+            removeWaiters(objectId, state, request -> targetOperatorId.equals(request.getOperatorId()));
+            removeHolder(objectId, state, heldLock);
+            LockInfo transferred = newLock(heldLock.getAction(), targetOperatorId, true, null);
+            addHolder(objectId, state, transferred);
+            contentionProfiler.record(ContentionMetric.ACQUIRE, objectId, 1);
+            emit(StateTransition.Type.TRANSFER, objectId, state);
+
+            String newToken = TokenCodec.encode(transferred.getToken());
+            logger.info("锁已转交: objectId={}, from={}, to={}, token={}",
+                    objectId, operatorId, targetOperatorId, newToken);
+            return OperationResult.success(newToken);
+        } finally {
+            state.unlock();
+            awaitReplication();
+        }
+    }
+
+    @Override
+    public OperationResult upgrade(String objectId, String readToken, String action, String operatorId) {
+        if (objectId == null || readToken == null || action == null || operatorId == null) {
+            return OperationResult.fail("参数不能为空");
+        }
+        if (!readToken.startsWith("READ_")) {
+            return OperationResult.fail("Token不匹配");
+        }
+        if ("read".equalsIgnoreCase(action) || "exit".equalsIgnoreCase(action)) {
+            return OperationResult.fail("不支持的操作");
+        }
+        ObjectState state = lockObjectState(objectId, false);
+        if (state == null) {
+            return OperationResult.fail("对象不存在");
+        }
+        try {
+            applyPolicy(objectId, state);
+            cleanExpiredLock(objectId, state);
+            String reader = state.readerOf(readToken);
+            if (reader == null) {
+                return OperationResult.fail("读操作不存在");
+            }
+            if (!reader.equals(operatorId)) {
+                return OperationResult.fail("操作者与读操作不一致");
+            }
+            if (state.getCurrentLock() != null) {
+                return OperationResult.fail("对象已被锁定");
+            }
+            if (state.getReadCount() > 1) {
+                return OperationResult.fail("存在其他读操作");
+            }
+            state.removeRead(readToken);
+            LockInfo lockInfo = newLock(action, operatorId, false, null);
+            setLock(objectId, state, lockInfo);
+            contentionProfiler.record(ContentionMetric.ACQUIRE, objectId, 1);
+            emit(StateTransition.Type.UPGRADE, objectId, state);
+
+            String newToken = TokenCodec.encode(lockInfo.getToken());
+            logger.info("读操作升级为写锁: objectId={}, action={}, token={}, operatorId={}",
+                    objectId, action, newToken, operatorId);
+            return OperationResult.success(newToken);
+        } finally {
+            state.unlock();
+            awaitReplication();
+        }
+    }
+
+    @Override
+    public OperationResult downgrade(String objectId, String token, String operatorId) {
+        if (objectId == null || token == null || operatorId == null) {
+            return OperationResult.fail("参数不能为空");
+        }
+        ObjectState state = lockObjectState(objectId, false);
+        if (state == null) {
+            return OperationResult.fail("对象不存在");
+        }
+        try {
+            applyPolicy(objectId, state);
+            cleanExpiredLock(objectId, state);
+            OperationResult rejected = checkHolder(state, token, operatorId);
+            if (rejected != null) {
+                return rejected;
+            }
+            LockInfo heldLock = findLock(state, token);
+            removeHolder(objectId, state, heldLock);
+            String readToken = newReadToken();
+            state.addRead(readToken, heldLock.getOwnerId(), clock.millis());
+            processWaitingQueue(objectId, state, heldLock.getAction());
+            relaxIfUncontended(objectId, state);
+            emit(StateTransition.Type.DOWNGRADE, objectId, state);
+            logger.info("写锁降级为读操作: objectId={}, operatorId={}, 当前读数量={}",
+                    objectId, operatorId, state.getReadCount());
+            return OperationResult.success(readToken);
+        } finally {
+            state.unlock();
+            awaitReplication();
+        }
+    }
+
+    /**
+     * 校验Token是否属于对象的某个持有者（调用方须持有对象锁）
+     *
+     * @return 校验失败时的结果，通过时返回null
+     */
+    private OperationResult checkHolder(ObjectState state, String token, String operatorId) {
+        if (isRevoked(token)) {
+            return OperationResult.fail("锁因死锁被撤销");
+        }
+        LockInfo currentLock = state.getCurrentLock();
+        if (currentLock == null) {
+            return OperationResult.fail("对象未被锁定");
+        }
+        LockInfo heldLock = findLock(state, token);
+        if (heldLock == null) {
+            return OperationResult.fail("Token不匹配");
+        }
+        if (!heldLock.getOwnerId().equals(operatorId)) {
+            return OperationResult.fail("操作者与锁持有者不一致");
+        }
+        return null;
+    }
+
+    /**
+     * 移除对象上满足条件的排队请求并通知状态变更（调用方须持有对象锁）
+     */
+    private void removeWaiters(String objectId, ObjectState state, Predicate<WaitingRequest> filter) {
+        WaitingQueue queue = state.getWaitingQueue();
+        if (queue == null) {
+            return;
+        }
+        int queued = queue.size();
+        queue.removeIf(req -> {
+            boolean matched = filter.test(req);
+            if (matched) {
+                waiterRemoved(objectId, req);
+            }
+            return matched;
+        });
+        int removed = queued - queue.size();
+        waiterCount.addAndGet(-removed);
+        releaseQueueIfEmpty(objectId, state);
+        if (removed > 0) {
+            emit(StateTransition.Type.DEQUEUE, objectId, state);
+        }
+    }
+
+    private static String newReadToken() {
+        return "READ_" + UUID.randomUUID().toString().substring(0, 8);
+    }
+
+    /**
+     * 处理检测到的死锁
+     *
+     * @param cycle 环上的对象（第一个为请求等待的对象）
+     * @return 给请求者的结果；为null时环已被打破，请求者继续排队
+     */
+    private OperationResult resolveDeadlock(WaitForGraph graph, List<String> cycle, ObjectState state,
+                                            String action, String operatorId, String objectId, Session session) {
+        deadlocksDetected.increment();
+        contentionProfiler.record(ContentionMetric.DEADLOCK, objectId, 1);
+        logger.warn("检测到死锁: objectId={}, operatorId={}, cycle={}", objectId, operatorId, cycle);
+
+        if (deadlockVictimPolicy == DeadlockVictimPolicy.YOUNGEST) {
+            String victim = null;
+            long youngest = Long.MIN_VALUE;
+            for (String cycleObject : cycle) {
+                WaitForGraph.Holder holder = graph.holderOf(cycleObject);
+                if (holder != null && holder.acquireTime >= youngest) {
+                    youngest = holder.acquireTime;
+                    victim = cycleObject;
+                }
+            }
+            if (objectId.equals(victim)) {
+                revokeLock(objectId, state);
+                // 锁已撤销且无人等待时请求者直接获取，否则继续排队
+                return state.getCurrentLock() == null ? acquireNewLock(objectId, state, action, operatorId, session) : null;
+            }
+            // 已持有当前对象锁，只尝试获取牺牲对象的锁，避免加锁顺序导致的死锁
+            ObjectState victimState = victim != null ? objectStates.get(victim) : null;
+            if (victimState != null && victimState.tryLock()) {
+                try {
+                    if (!victimState.isRetired() && victimState.getCurrentLock() != null) {
+                        revokeLock(victim, victimState);
+                        return null;
+                    }
+                } finally {
+                    victimState.unlock();
+                }
+            }
+        }
+        return OperationResult.fail("检测到死锁");
+    }
+
+    /**
+     * 撤销对象的全部持有者的锁并交给下一个等待者（调用方须持有对象锁）
+     */
+    private void revokeLock(String objectId, ObjectState state) {
+        LockInfo lock = state.getCurrentLock();
+        for (LockInfo holder = lock; holder != null; holder = holder.getNext()) {
+            revokedTokens.put(holder.getToken(), Boolean.TRUE);
+            logger.warn("撤销死锁牺牲者的锁: objectId={}, ownerId={}, token={}",
+                    objectId, holder.getOwnerId(), TokenCodec.encode(holder.getToken()));
+        }
+        releaseLock(objectId, state);
+        processWaitingQueue(objectId, state, lock.getAction());
+        relaxIfUncontended(objectId, state);
+        emit(StateTransition.Type.EXIT, objectId, state);
+    }
+
+    private boolean isRevoked(String token) {
+        return token != null && !revokedTokens.isEmpty() && revokedTokens.containsKey(TokenCodec.decode(token));
+    }
+
+    private void waiterAdded(String objectId, WaitingRequest request) {
+        if (request.getSession() != null) {
+            request.getSession().bind(objectId);
+        }
+        WaitForGraph graph = waitForGraph;
+        if (graph != null) {
+            graph.addWait(request.getOperatorId(), objectId);
+        }
+    }
+
+    private void waiterRemoved(String objectId, WaitingRequest request) {
+        if (request.getSession() != null) {
+            request.getSession().unbind(objectId);
+        }
+        WaitForGraph graph = waitForGraph;
+        if (graph != null) {
+            graph.removeWait(request.getOperatorId(), objectId);
+        }
+    }
+
+    /**
+     * 悲观锁定模式下，锁释放且无人等待时降低冲突评分，评分归零后恢复乐观模式
+     * （调用方须持有对象锁）
+     */
+    private void relaxIfUncontended(String objectId, ObjectState state) {
+        if (state.isPessimistic() && state.getCurrentLock() == null && state.getWaitingQueue() == null) {
+            state.setConflictScore((byte) (state.getConflictScore() - 1));
+            if (state.getConflictScore() <= 0) {
+                state.setConflictScore((byte) 0);
+                state.setPessimistic(false);
+                logger.info("竞争已缓解，恢复乐观模式: objectId={}", objectId);
+            }
+        }
+    }
+
+    /**
+     * 是否允许访问对象（达到对象数量上限时只允许访问已存在的对象）
+     * 调用方不得持有任何对象锁：达到上限时先清理实际已空闲的对象再判断
+     */
+    private boolean admitObject(String objectId) {
+        int maxObjects = this.maxObjects;
+        if (maxObjects <= 0 || objectStates.size() < maxObjects || objectStates.containsKey(objectId)) {
+            return true;
+        }
+        sweepIdleObjects();
+        if (objectStates.size() < maxObjects) {
+            return true;
+        }
+        logger.warn("对象数量已达上限: objectId={}, maxObjects={}", objectId, maxObjects);
+        return false;
+    }
+
+    /**
+     * 清理实际已空闲却仍在状态映射中的对象：锁过期后无人访问、读操作超过最大持有时间未退出、
+     * 只被乐观模式读取过版本的对象。过期是惰性的，这些对象只在对象数量达到上限时由此集中清理；
+     * 每隔CAPACITY_SWEEP_INTERVAL最多执行一次，跳过正被其他线程持有的对象。
+     * 被清理的乐观模式对象版本重新分配，进行中的提交按版本冲突处理
+     */
+    private void sweepIdleObjects() {
+        long now = clock.millis();
+        long due = nextCapacitySweep.get();
+        if (now < due || !nextCapacitySweep.compareAndSet(due, now + CAPACITY_SWEEP_INTERVAL)) {
+            return;
+        }
+        int retired = 0;
+        for (Map.Entry<String, ObjectState> entry : objectStates.entrySet()) {
+            String objectId = entry.getKey();
+            ObjectState state = entry.getValue();
+            if (!state.tryLock()) {
+                continue;
+            }
+            try {
+                if (state.isRetired()) {
+                    continue;
+                }
+                applyPolicy(objectId, state);
+                cleanExpiredLock(objectId, state);
+                if (state.expireReads(state.getPolicy().getLockMaxHoldTime(), now)) {
+                    logger.warn("读操作超时自动结束: objectId={}", objectId);
+                    emit(StateTransition.Type.READ, objectId, state);
+                }
+                if (state.getCurrentLock() == null && state.getReadCount() == 0 && state.getWaitingQueue() == null) {
+                    retire(objectId, state);
+                    retired++;
+                }
+            } finally {
+                state.unlock();
+            }
+        }
+        awaitReplication();
+        logger.info("对象数量已达上限，清理空闲对象: retired={}, remaining={}", retired, objectStates.size());
+    }
+
+    /**
+     * 启用对象数量限制时，移除空闲对象（无锁、无读操作、无等待者），使对象数量只统计活跃对象
+     * （调用方须持有对象锁）
+     */
+    private void retireIfIdle(String objectId, ObjectState state) {
+        if (maxObjects > 0 && state.getCurrentLock() == null && state.getReadCount() == 0
+                && state.getWaitingQueue() == null) {
+            retire(objectId, state);
+        }
+    }
+
+    /**
+     * 将对象移出状态映射；等待该状态锁的线程会重新获取（调用方须持有对象锁）
+     */
+    private void retire(String objectId, ObjectState state) {
+        if (state.getWaitingQueue() != null) {
+            waiterCount.addAndGet(-state.getWaitingQueue().size());
+            state.getWaitingQueue().forEach(request -> waiterRemoved(objectId, request));
+        }
+        WaitForGraph graph = waitForGraph;
+        if (state.getWaitingQueue() != null && graph != null) {
+            graph.setHolder(objectId, null, 0);
+        }
+        state.setRetired(true);
+        objectStates.remove(objectId, state);
+    }
+
+    /**
+     * 导出对象状态
+     *
+     * @param filter 需要导出的objectId
+     * @param remove 导出后是否从本服务中移除
+     * @return 对象状态快照
+     */
+    public List<ObjectSnapshot> exportObjects(Predicate<String> filter, boolean remove) {
+        return exportObjects(objectStates.keySet(), filter, remove);
+    }
+
+    /**
+     * 按objectId导出对象状态（只访问给定的对象，不扫描状态映射；不存在的对象跳过）
+     *
+     * @param objectIds 需要导出的objectId
+     * @param remove 导出后是否从本服务中移除
+     * @return 对象状态快照
+     */
+    public List<ObjectSnapshot> exportObjects(Collection<String> objectIds, boolean remove) {
+        return exportObjects(objectIds, objectId -> true, remove);
+    }
+
+    /**
+     * 当前跟踪的对象ID（弱一致视图，遍历期间新建或移除的对象可能出现也可能不出现）
+     */
+    public Set<String> getObjectIds() {
+        return Collections.unmodifiableSet(objectStates.keySet());
+    }
+
+    /**
+     * 开始或停止记录新建的对象
+     * 供迁移在扫描对象ID之前开启：扫描时已存在的对象由扫描得到，扫描开始后新建的对象由记录得到
+     *
+     * @param sink 新建对象的objectId写入的集合（须线程安全），为null时停止记录
+     */
+    public void recordCreatedObjects(Set<String> sink) {
+        this.createdObjects = sink;
+    }
+
+    private List<ObjectSnapshot> exportObjects(Iterable<String> objectIds, Predicate<String> filter, boolean remove) {
+        List<ObjectSnapshot> snapshots = new ArrayList<>();
+        for (String objectId : objectIds) {
+            if (!filter.test(objectId)) {
+                continue;
+            }
+            ObjectState state = lockObjectState(objectId, false);
+            if (state == null) {
+                continue;
+            }
+            try {
+                snapshots.add(snapshotOf(objectId, state));
+                if (remove) {
+                    retire(objectId, state);
+                }
+            } finally {
+                state.unlock();
+            }
+        }
+        return snapshots;
+    }
+
+    /**
+     * 导入对象状态（覆盖本地已有状态）
+     */
+    public void importObject(ObjectSnapshot snapshot) {
+        String objectId = snapshot.getObjectId();
+        ObjectState state = lockObjectState(objectId, true);
+        try {
+            applyPolicy(objectId, state);
+            long now = clock.millis();
+            Map<String, Session> leases = importSessions(snapshot, now);
+            state.setReadTokens(null);
+            snapshot.getReadTokens().forEach((token, reader) -> state.addRead(token, operators.intern(reader), now));
+            int untracked = snapshot.getReadCount() - snapshot.getReadTokens().size();
+            if (untracked > 0) {
+                state.addUntrackedReads(untracked, now);
+            }
+
+            LockInfo lockInfo = null;
+            if (snapshot.getLockToken() != null) {
+                lockInfo = newImportedLock(leases, snapshot.getLockSessionId());
+                lockInfo.setToken(TokenCodec.decode(snapshot.getLockToken()));
+                lockInfo.setAction(dictionary.intern(snapshot.getLockAction()));
+                lockInfo.setOwnerId(operators.intern(snapshot.getLockOwnerId()));
+                lockInfo.setAcquireTime(now - snapshot.getLockHeldMillis());
+                lockInfo.setLastRefreshTime(now - snapshot.getLockIdleMillis());
+                lockInfo.setPendingClaim(snapshot.isLockPendingClaim());
+            }
+            setLock(objectId, state, lockInfo);
+            if (lockInfo != null) {
+                for (ObjectSnapshot.Holder holder : snapshot.getSharedHolders()) {
+                    LockInfo shared = newImportedLock(leases, holder.getSessionId());
+                    shared.setToken(TokenCodec.decode(holder.getToken()));
+                    shared.setAction(dictionary.intern(holder.getAction()));
+                    shared.setOwnerId(operators.intern(holder.getOwnerId()));
+                    shared.setAcquireTime(now - holder.getHeldMillis());
+                    shared.setLastRefreshTime(now - holder.getIdleMillis());
+                    shared.setPendingClaim(holder.isPendingClaim());
+                    addHolder(objectId, state, shared);
+                }
+            }
+
+            WaitingQueue queue = state.getPolicy().getPriorityScheduler().newQueue();
+            for (ObjectSnapshot.Waiter waiter : snapshot.getWaiters()) {
+                WaitingRequest waitingRequest = new WaitingRequest();
+                waitingRequest.setRequestId(requestSequence.incrementAndGet());
+                waitingRequest.setAction(dictionary.intern(waiter.getAction()));
+                waitingRequest.setOperatorId(operators.intern(waiter.getOperatorId()));
+                waitingRequest.setEnqueueTime(now - waiter.getWaitedMillis());
+                waitingRequest.setSession(waiter.getSessionId() != null ? leases.get(waiter.getSessionId()) : null);
+                queue.offer(waitingRequest);
+            }
+            int replaced = 0;
+            if (state.getWaitingQueue() != null) {
+                replaced = state.getWaitingQueue().size();
+                state.getWaitingQueue().forEach(request -> waiterRemoved(objectId, request));
+            }
+            queue.forEach(request -> waiterAdded(objectId, request));
+            waiterCount.addAndGet(queue.size() - replaced);
+            state.setWaitingQueue(queue);
+            releaseQueueIfEmpty(objectId, state);
+            retireIfIdle(objectId, state);
+        } finally {
+            state.unlock();
+        }
+    }
+
+    /**
+     * 还原快照引用的会话：本地已有的会话沿用（快照中的心跳更近时顺延），没有的按租约重建
+     * 本地已关闭的会话不会出现在会话表中，按快照重建后由其过期时间决定去留
+     */
+    private Map<String, Session> importSessions(ObjectSnapshot snapshot, long now) {
+        if (snapshot.getSessions().isEmpty()) {
+            return Collections.emptyMap();
+        }
+        Map<String, Session> leases = new HashMap<>();
+        for (ObjectSnapshot.SessionLease lease : snapshot.getSessions()) {
+            long lastHeartbeat = now - lease.getIdleMillis();
+            Session session = sessions.computeIfAbsent(lease.getSessionId(), id ->
+                    new Session(id, operators.intern(lease.getOperatorId()), lease.getTtl(), lastHeartbeat));
+            if (session.getLastHeartbeat() < lastHeartbeat && !session.isExpired(now)) {
+                session.heartbeat(lastHeartbeat);
+            }
+            leases.put(lease.getSessionId(), session);
+        }
+        return leases;
+    }
+
+    private static LockInfo newImportedLock(Map<String, Session> leases, String sessionId) {
+        Session session = sessionId != null ? leases.get(sessionId) : null;
+        return session != null ? new SessionLockInfo(session) : new LockInfo();
+    }
+
+    /**
+     * 通知状态变更（调用方须持有对象锁）
+     */
+    private void emit(StateTransition.Type type, String objectId, ObjectState state) {
+        StateTransitionListener listener = transitionListener;
+        if (listener != null) {
+            CompletableFuture<Void> ack = listener.onTransition(new StateTransition(type, snapshotOf(objectId, state)));
+            if (ack != null) {
+                pendingAck.set(ack);
+            }
+        }
+    }
+
+    /**
+     * 等待本线程最近一次状态变更被复制确认（须在释放对象锁之后调用）
+     * 同一线程先后发出的变更按序复制，等待最近一次即覆盖之前的全部
+     */
+    private void awaitReplication() {
+        if (transitionListener == null) {
+            return;
+        }
+        CompletableFuture<Void> ack = pendingAck.get();
+        if (ack != null) {
+            pendingAck.remove();
+            ack.join();
+        }
+    }
+
+    /**
+     * 生成对象状态快照（调用方须持有对象锁）
+     */
+    private ObjectSnapshot snapshotOf(String objectId, ObjectState state) {
+        long now = clock.millis();
+        ObjectSnapshot snapshot = new ObjectSnapshot();
+        snapshot.setObjectId(objectId);
+        snapshot.setReadCount(state.getReadCount());
+        if (state.getReadTokens() != null) {
+            snapshot.getReadTokens().putAll(state.getReadTokens().owners());
+        }
+
+        LockInfo lock = state.getCurrentLock();
+        if (lock != null) {
+            snapshot.setLockToken(TokenCodec.encode(lock.getToken()));
+            snapshot.setLockAction(lock.getAction());
+            snapshot.setLockOwnerId(lock.getOwnerId());
+            snapshot.setLockHeldMillis(now - lock.getAcquireTime());
+            snapshot.setLockIdleMillis(now - lock.getLastRefreshTime());
+            snapshot.setLockPendingClaim(lock.isPendingClaim());
+            snapshot.setLockSessionId(leaseOf(snapshot, lock.getSession(), now));
+            for (LockInfo shared = lock.getNext(); shared != null; shared = shared.getNext()) {
+                ObjectSnapshot.Holder holder = new ObjectSnapshot.Holder();
+                holder.setToken(TokenCodec.encode(shared.getToken()));
+                holder.setAction(shared.getAction());
+                holder.setOwnerId(shared.getOwnerId());
+                holder.setHeldMillis(now - shared.getAcquireTime());
+                holder.setIdleMillis(now - shared.getLastRefreshTime());
+                holder.setPendingClaim(shared.isPendingClaim());
+                holder.setSessionId(leaseOf(snapshot, shared.getSession(), now));
+                snapshot.getSharedHolders().add(holder);
+            }
+        }
+
+        if (state.getWaitingQueue() != null) {
+            List<WaitingRequest> pending = new ArrayList<>();
+            state.getWaitingQueue().forEach(pending::add);
+            pending.sort(Comparator.comparingLong(WaitingRequest::getRequestId));
+            for (WaitingRequest request : pending) {
+                ObjectSnapshot.Waiter waiter = new ObjectSnapshot.Waiter();
+                waiter.setAction(request.getAction());
+                waiter.setOperatorId(request.getOperatorId());
+                waiter.setWaitedMillis(now - request.getEnqueueTime());
+                waiter.setSessionId(leaseOf(snapshot, request.getSession(), now));
+                snapshot.getWaiters().add(waiter);
+            }
+        }
+        return snapshot;
+    }
+
+    /**
+     * 将会话租约加入快照（同一会话只加入一次）
+     *
+     * @return 会话ID，无会话时返回null
+     */
+    private static String leaseOf(ObjectSnapshot snapshot, Session session, long now) {
+        if (session == null) {
+            return null;
+        }
+        for (ObjectSnapshot.SessionLease lease : snapshot.getSessions()) {
+            if (lease.getSessionId().equals(session.getSessionId())) {
+                return lease.getSessionId();
+            }
+        }
+        ObjectSnapshot.SessionLease lease = new ObjectSnapshot.SessionLease();
+        lease.setSessionId(session.getSessionId());
+        lease.setOperatorId(session.getOperatorId());
+        lease.setTtl(session.getTtl());
+        lease.setIdleMillis(now - session.getLastHeartbeat());
+        snapshot.getSessions().add(lease);
+        return lease.getSessionId();
+    }
+
+    /**
+     * 应用对象策略
+     * 策略表变更后，对象在下一次被访问时（持有对象锁、做出任何判断之前）重新解析策略；
+     * 锁的持有时间在检查时按当前策略计算，因此同样对已持有的锁生效
+     */
+    private void applyPolicy(String objectId, ObjectState state) {
+        long version = policyTable.version();
+        if (state.getPolicyVersion() == (int) version) {
+            return;
+        }
+        ObjectPolicy previous = state.getPolicy();
+        ObjectPolicy policy = policyTable.resolve(objectId);
+        state.setPolicy(policy);
+        state.setPolicyVersion((int) version);
+
+        // 调度器变化时，将已有等待请求按入队顺序迁移到新队列
+        WaitingQueue current = state.getWaitingQueue();
+        if (current != null && previous.getPriorityScheduler() != policy.getPriorityScheduler()) {
+            WaitingQueue queue = policy.getPriorityScheduler().newQueue();
+            List<WaitingRequest> pending = new ArrayList<>();
+            current.forEach(pending::add);
+            pending.sort(Comparator.comparingLong(WaitingRequest::getRequestId));
+            pending.forEach(queue::offer);
+            state.setWaitingQueue(queue);
+        }
+    }
+
+    /**
+     * 用全局配置刷新默认策略
+     */
+    private void updateDefaultPolicy() {
+        policyTable.setDefaults(new ObjectPolicy(lockMaxHoldTime, null, maxQueueSize, priorityScheduler));
+    }
+
     @Override
     public void setPriorityStrategy(PriorityStrategy strategy) {
-        this.priorityStrategy = strategy;
-        logger.info("优先策略已设置为: {}", strategy);
+        setPriorityScheduler(PrioritySchedulers.of(strategy));
+    }
+
+    @Override
+    public void setPriorityScheduler(PriorityScheduler scheduler) {
+        this.priorityScheduler = Objects.requireNonNull(scheduler);
+        updateDefaultPolicy();
+        logger.info("优先策略已设置为: {}", scheduler);
     }
 
     @Override
@@ -357,25 +1454,267 @@ public class ConflictControlServiceImpl implements ConflictControlService {
         this.maxQueueSize = maxQueueSize;
         this.lockMaxHoldTime = lockMaxHoldTime;
         this.maxWaitTime = maxWaitTime;
+        updateDefaultPolicy();
         logger.info("配置已更新: maxQueueSize={}, lockMaxHoldTime={}ms, maxWaitTime={}ms",
                 maxQueueSize, lockMaxHoldTime, maxWaitTime);
     }
 
+    @Override
+    public void setObjectPolicy(String objectIdPrefix, ObjectPolicy policy) {
+        policyTable.put(objectIdPrefix, policy);
+        logger.info("对象策略已设置: prefix={}, policy={}", objectIdPrefix, policy);
+    }
+
+    @Override
+    public void removeObjectPolicy(String objectIdPrefix) {
+        if (policyTable.remove(objectIdPrefix)) {
+            logger.info("对象策略已移除: prefix={}", objectIdPrefix);
+        }
+    }
+
+    /**
+     * 设置容量限制
+     * 设置对象数量上限后，对象在变为空闲时即被移除，对已移除对象的退出操作返回"对象不存在"；
+     * 锁已过期或读操作超过最大持有时间却无人访问的对象，在达到上限时集中清理；
+     * 并发访问时上限可能被短暂超出，超出量不超过并发线程数
+     *
+     * @param maxObjects 对象数量上限（0表示不限制）
+     * @param maxWaiters 所有对象的等待者总数上限（0表示不限制）
+     */
+    public void setCapacityLimits(int maxObjects, int maxWaiters) {
+        this.maxObjects = maxObjects;
+        this.maxWaiters = maxWaiters;
+        logger.info("容量限制已更新: maxObjects={}, maxWaiters={}", maxObjects, maxWaiters);
+    }
+
+    /**
+     * 设置乐观模式
+     * 启用后readVersion/commit可用；对象的乐观提交冲突评分（冲突加一、成功减一）达到阈值时切换为悲观锁定，
+     * 之后每次锁释放且无人等待时评分减一（有人排队时加一），归零后恢复乐观模式
+     *
+     * @param conflictThreshold 切换为悲观锁定的冲突评分阈值（0表示不启用乐观模式，最大127）
+     */
+    public void setOptimisticConflictThreshold(int conflictThreshold) {
+        this.optimisticConflictThreshold = Math.min(conflictThreshold, Byte.MAX_VALUE);
+        logger.info("乐观模式冲突阈值已设置为: {}", conflictThreshold);
+    }
+
+    /**
+     * 打开会话
+     * 通过会话操作获取的锁和排队请求绑定到会话：会话有效期间锁不因未刷新而过期，一次心跳即续期全部；
+     * 会话过期或关闭时，绑定的锁全部释放、排队请求全部移除，每个对象的等待队列只交接一次
+     *
+     * @param operatorId 操作者唯一标识
+     * @param ttl 心跳超时时间(ms)
+     * @return 会话ID
+     */
+    public String openSession(String operatorId, long ttl) {
+        if (operatorId == null || ttl <= 0) {
+            throw new IllegalArgumentException("operatorId不能为空且ttl必须为正数");
+        }
+        Session session = new Session("SESSION_" + TokenCodec.encode(TokenCodec.generate()),
+                operators.intern(operatorId), ttl, clock.millis());
+        sessions.put(session.getSessionId(), session);
+        logger.info("会话已打开: sessionId={}, operatorId={}, ttl={}ms", session.getSessionId(), operatorId, ttl);
+        return session.getSessionId();
+    }
+
+    /**
+     * 会话心跳（不访问绑定的对象）
+     * 心跳同时驱动过期会话的清理：距上次清理超过本会话的ttl时，由恰好到达的一次心跳执行 {@link #expireSessions()}，
+     * 因此只要仍有会话在心跳，过期会话至多延迟一个ttl被释放；其余心跳为O(1)
+     *
+     * @return 会话有效时返回true；会话不存在或已过期时返回false，已过期的会话随即释放
+     */
+    public boolean heartbeat(String sessionId) {
+        Session session = sessionId != null ? sessions.get(sessionId) : null;
+        if (session == null) {
+            return false;
+        }
+        long now = clock.millis();
+        if (session.isExpired(now)) {
+            releaseSession(session);
+            awaitReplication();
+            return false;
+        }
+        session.heartbeat(now);
+        long due = nextSessionSweep.get();
+        if (now >= due && nextSessionSweep.compareAndSet(due, now + session.getTtl())) {
+            expireSessions();
+        }
+        return true;
+    }
+
     /**
-     * Token生成器
+     * 关闭会话，释放其全部锁与排队请求
+     *
+     * @return 会话是否存在
      */
-    private static class TokenGenerator {
-        private static final String CHARS = "ABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789";
-        private final Random random = new Random();
+    public boolean closeSession(String sessionId) {
+        Session session = sessionId != null ? sessions.get(sessionId) : null;
+        if (session == null) {
+            return false;
+        }
+        releaseSession(session);
+        awaitReplication();
+        return true;
+    }
 
-        public String generate() {
-            StringBuilder sb = new StringBuilder(10);
-            for (int i = 0; i < 10; i++) {
-                sb.append(CHARS.charAt(random.nextInt(CHARS.length())));
+    /**
+     * 释放所有已过期的会话
+     * 心跳会按ttl间隔自动执行；所有会话都停止心跳时，由调用方定期执行，
+     * 未执行时过期会话的锁在对象下次被访问时释放，排队请求在所在队列下次交接时移除
+     *
+     * @return 释放的会话数
+     */
+    public int expireSessions() {
+        long now = clock.millis();
+        int expired = 0;
+        for (Session session : sessions.values()) {
+            if (session.isExpired(now)) {
+                releaseSession(session);
+                expired++;
             }
-            return sb.toString();
         }
+        awaitReplication();
+        return expired;
+    }
+
+    /**
+     * 当前打开的会话数
+     */
+    public int getSessionCount() {
+        return sessions.size();
+    }
+
+    /**
+     * 释放会话：逐个对象移除其排队请求并释放其锁，每个对象的等待队列只交接一次
+     */
+    private void releaseSession(Session session) {
+        session.close();
+        if (!sessions.remove(session.getSessionId(), session)) {
+            return;
+        }
+        int objects = 0;
+        for (String objectId : new ArrayList<>(session.getBoundObjects())) {
+            ObjectState state = lockObjectState(objectId, false);
+            if (state == null) {
+                continue;
+            }
+            try {
+                applyPolicy(objectId, state);
+                removeWaiters(objectId, state, request -> request.getSession() == session);
+                // 会话已关闭，绑定的锁均视为过期
+                cleanExpiredLock(objectId, state);
+                retireIfIdle(objectId, state);
+                objects++;
+            } finally {
+                state.unlock();
+            }
+        }
+        logger.info("会话已释放: sessionId={}, operatorId={}, objects={}",
+                session.getSessionId(), session.getOperatorId(), objects);
+    }
+
+    /**
+     * 设置两个动作是否相容（对称；同一动作自身需以相同参数登记）
+     * 相容的动作可同时持有同一对象，各持有者有各自的Token与租约：对象被锁定、与全部持有者相容且无人排队时直接获取；
+     * 锁交接时，队列中与新持有者相容的等待者按入队顺序一并分配。等待图只登记首个持有者
+     *
+     * @param action 动作
+     * @param other 另一个动作
+     * @param compatible 是否相容
+     */
+    public void setActionCompatible(String action, String other, boolean compatible) {
+        actionCompatibility.set(Objects.requireNonNull(action), Objects.requireNonNull(other), compatible);
+        logger.info("动作相容性已设置: {} - {}: {}", action, other, compatible);
+    }
+
+    /**
+     * 设置自适应租约
+     * 启用后按操作者的刷新间隔估计每个锁的租约，租约到期未刷新即视为放弃；
+     * 租约不超过对象策略的最大持有时间，刷新样本不足的操作者直接使用最大持有时间
+     *
+     * @param minLease 租约下限(ms)（0表示关闭）
+     */
+    public void setAdaptiveLease(long minLease) {
+        this.leaseEstimator = minLease > 0 ? new LeaseEstimator(minLease) : null;
+        logger.info("自适应租约已{}: minLease={}ms", minLease > 0 ? "启用" : "关闭", minLease);
+    }
+
+    /**
+     * 设置死锁检测
+     * 启用后维护操作者之间的等待图，每次排队前检测是否形成等待环；无人排队的加锁和解锁不访问等待图。
+     * 启用时登记已有人排队的对象的锁持有者，已在排队的请求在再次排队时登记
+     *
+     * @param victimPolicy 牺牲者策略（为null时关闭检测）
+     */
+    public void setDeadlockDetection(DeadlockVictimPolicy victimPolicy) {
+        if (victimPolicy == null) {
+            waitForGraph = null;
+            logger.info("死锁检测已关闭");
+            return;
+        }
+        deadlockVictimPolicy = victimPolicy;
+        if (waitForGraph == null) {
+            WaitForGraph graph = new WaitForGraph();
+            waitForGraph = graph;
+            for (String objectId : objectStates.keySet()) {
+                ObjectState state = lockObjectState(objectId, false);
+                if (state == null) {
+                    continue;
+                }
+                try {
+                    LockInfo lock = state.getCurrentLock();
+                    if (lock != null && state.getWaitingQueue() != null) {
+                        graph.setHolder(objectId, lock.getOwnerId(), lock.getAcquireTime());
+                    }
+                } finally {
+                    state.unlock();
+                }
+            }
+        }
+        logger.info("死锁检测已启用: victimPolicy={}", victimPolicy);
+    }
+
+    /**
+     * 检测到的死锁次数
+     */
+    public long getDeadlocksDetected() {
+        return deadlocksDetected.sum();
+    }
+
+    /**
+     * 当前对象数量
+     */
+    public int getObjectCount() {
+        return objectStates.size();
     }
-}
 
+    /**
+     * 当前等待者总数
+     */
+    public int getWaiterCount() {
+        return waiterCount.get();
+    }
 
+    /**
+     * 设置状态变更监听器（为null时取消）
+     * 监听器在持有对象锁时同步调用，其耗时直接计入操作延迟
+     */
+    public void setStateTransitionListener(StateTransitionListener listener) {
+        this.transitionListener = listener;
+    }
+
+    public Clock getClock() {
+        return clock;
+    }
+
+    /**
+     * 获取竞争热点分析器
+     * 可通过 {@link ContentionProfiler#snapshot(int)} 查看各指标的热点对象
+     */
+    public ContentionProfiler getContentionProfiler() {
+        return contentionProfiler;
+    }
+}
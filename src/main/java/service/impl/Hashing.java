@@ -0,0 +1,26 @@
+package service.impl;
+
+/**
+ * 哈希工具
+ */
+public final class Hashing {
+
+    private Hashing() {
+    }
+
+    /**
+     * 64位哈希（FNV-1a后再混合高低位，0保留给空值）
+     */
+    public static long hash64(String key) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            h ^= key.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        // 混合高低位，使高位与低位分别取用时相互独立
+        h ^= h >>> 29;
+        h *= 0xbf58476d1ce4e5b9L;
+        h ^= h >>> 32;
+        return h == 0 ? 1 : h;
+    }
+}
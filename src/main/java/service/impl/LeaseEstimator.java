@@ -0,0 +1,108 @@
+package service.impl;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 自适应租约估计
+ * 按操作者跟踪刷新间隔的指数加权均值与平均偏差（与TCP重传超时的估计方法相同），
+ * 租约取 均值 + 4 × 偏差：规律刷新的操作者偏差小、租约紧，一旦停止刷新很快被判定为放弃；
+ * 刷新间隔起伏大的操作者偏差大、租约宽松。
+ * 跟踪的操作者达到上限时淘汰最久未刷新的一部分，为新操作者腾出位置
+ */
+class LeaseEstimator {
+
+    private static final double MEAN_GAIN = 0.125;
+    private static final double DEVIATION_GAIN = 0.25;
+    private static final int DEVIATION_FACTOR = 4;
+    private static final int MIN_SAMPLES = 3;
+    private static final int MAX_OPERATORS = 65536;
+    private static final int EVICT_DIVISOR = 8;     // 每次淘汰上限的1/8
+
+    private final long minLease;
+    private final ConcurrentHashMap<String, Stats> operators = new ConcurrentHashMap<>();
+    private final ReentrantLock evictLock = new ReentrantLock();
+
+    /**
+     * @param minLease 租约下限(ms)
+     */
+    LeaseEstimator(long minLease) {
+        this.minLease = minLease;
+    }
+
+    /**
+     * 记录一次刷新间隔
+     *
+     * @param now 当前时间(ms)
+     */
+    void record(String operatorId, long interval, long now) {
+        Stats stats = operators.get(operatorId);
+        if (stats == null) {
+            if (operators.size() >= MAX_OPERATORS) {
+                evictStale();
+            }
+            stats = operators.computeIfAbsent(operatorId, k -> new Stats());
+        }
+        stats.update(interval, now);
+    }
+
+    /**
+     * 淘汰最久未刷新的操作者（同一时间只有一个线程执行，其他线程直接跳过）
+     */
+    private void evictStale() {
+        if (!evictLock.tryLock()) {
+            return;
+        }
+        try {
+            if (operators.size() < MAX_OPERATORS) {
+                return;
+            }
+            long[] updates = operators.values().stream().mapToLong(Stats::lastUpdate).toArray();
+            Arrays.sort(updates);
+            long cutoff = updates[Math.min(updates.length, MAX_OPERATORS / EVICT_DIVISOR) - 1];
+            operators.values().removeIf(stats -> stats.lastUpdate() <= cutoff);
+        } finally {
+            evictLock.unlock();
+        }
+    }
+
+    /**
+     * 操作者的租约(ms)，样本不足时返回0（使用策略的最大持有时间）
+     */
+    int leaseFor(String operatorId) {
+        Stats stats = operators.get(operatorId);
+        return stats != null ? stats.lease(minLease) : 0;
+    }
+
+    private static final class Stats {
+        private double mean;
+        private double deviation;
+        private int samples;
+        private volatile long lastUpdate;
+
+        long lastUpdate() {
+            return lastUpdate;
+        }
+
+        synchronized void update(long interval, long now) {
+            lastUpdate = now;
+            if (samples == 0) {
+                mean = interval;
+                deviation = interval / 2.0;
+            } else {
+                deviation += DEVIATION_GAIN * (Math.abs(interval - mean) - deviation);
+                mean += MEAN_GAIN * (interval - mean);
+            }
+            samples++;
+        }
+
+        synchronized int lease(long minLease) {
+            if (samples < MIN_SAMPLES) {
+                return 0;
+            }
+            double lease = Math.max(minLease, Math.ceil(mean + DEVIATION_FACTOR * deviation));
+            return (int) Math.min(lease, Integer.MAX_VALUE);
+        }
+    }
+}
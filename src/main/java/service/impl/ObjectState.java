@@ -0,0 +1,93 @@
+package service.impl;
+
+import lombok.Getter;
+import lombok.Setter;
+import model.LockInfo;
+import service.ObjectPolicy;
+import service.scheduler.WaitingQueue;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 操作对象状态
+ * 状态对象本身即该对象的互斥锁（公平锁），不再单独为每个对象创建锁对象；
+ * objectId由状态映射的键保存，等待队列在首次有请求排队时才创建
+ */
+@Getter
+@Setter
+class ObjectState extends ReentrantLock {
+    private static final long serialVersionUID = 1L;
+
+    private LockInfo currentLock;      // 当前锁信息（null表示空闲）
+    private ReadTokens readTokens;     // 已发放的读Token（无读操作时为null）
+    private WaitingQueue waitingQueue; // 等待队列（由优先调度器创建，无等待者时为null）
+    private ObjectPolicy policy;       // 生效的对象策略（已合并全局配置，多个对象共享）
+    private int policyVersion = -1;    // 策略版本号（低32位），与策略表不一致时重新解析
+    private boolean retired;           // 已从状态映射中移除（持有旧引用的线程需重新获取）
+    private long version;              // 版本戳（奇数表示被悲观锁持有，乐观提交时比较并递增）
+    private byte conflictScore;        // 乐观提交冲突评分（达到阈值时切换为悲观锁定）
+    private boolean pessimistic;       // 是否处于悲观锁定模式
+
+    public ObjectState() {
+        super(true);
+    }
+
+    /**
+     * 当前读操作数量
+     */
+    public int getReadCount() {
+        return readTokens == null ? 0 : readTokens.size();
+    }
+
+    void addRead(String token, String operatorId, long now) {
+        if (readTokens == null) {
+            readTokens = new ReadTokens();
+        }
+        readTokens.add(token, operatorId, now);
+    }
+
+    /**
+     * 登记未携带读Token的读操作（只计数）
+     */
+    void addUntrackedReads(int count, long now) {
+        if (readTokens == null) {
+            readTokens = new ReadTokens();
+        }
+        readTokens.addUntracked(count, now);
+    }
+
+    /**
+     * 结束一个读操作，最后一个读操作结束后释放读Token表
+     *
+     * @return 是否结束了读操作
+     */
+    boolean removeRead(String token) {
+        if (readTokens == null || !readTokens.remove(token)) {
+            return false;
+        }
+        if (readTokens.size() == 0) {
+            readTokens = null;
+        }
+        return true;
+    }
+
+    /**
+     * 全部读操作都已超过时限（最近一次发放距今超过maxAge）时一并结束
+     *
+     * @return 是否结束了读操作
+     */
+    boolean expireReads(long maxAge, long now) {
+        if (readTokens == null || now - readTokens.lastGranted() <= maxAge) {
+            return false;
+        }
+        readTokens = null;
+        return true;
+    }
+
+    /**
+     * 读Token所属的操作者，未登记时返回null
+     */
+    String readerOf(String token) {
+        return readTokens == null ? null : readTokens.ownerOf(token);
+    }
+}
@@ -0,0 +1,407 @@
+package service.impl;
+
+import model.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import service.ConflictControlService;
+import service.ObjectPolicy;
+import service.clock.Clock;
+import service.clock.CoarseClock;
+import service.profiler.ContentionProfiler;
+import service.scheduler.PriorityScheduler;
+import service.scheduler.PrioritySchedulers;
+import service.scheduler.WaitingQueue;
+
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 冲突控制管理服务实现（堆外存储模式）
+ * 对象状态（Token、持有者、时间戳、读计数、队列引用）保存在分段的堆外开放寻址哈希表中，
+ * 每个对象只占一个64字节槽位和键区中的objectId字符，不产生堆上对象；
+ * 只有等待队列等溢出数据保存在堆上。空闲对象（无锁、无读、无等待）会被及时删除，
+ * 因此从未出现过的对象与已释放的对象无法区分，退出时都按空闲对象处理。
+ * 分段的直接内存在首次写入时按预计对象数分配，之后按需扩容。
+ * operate、优先调度与对象策略的语义与 {@link ConflictControlServiceImpl} 一致，适用于跟踪千万级对象、需要避免GC停顿的场景。
+ * 以下功能只在 {@link ConflictControlServiceImpl} 中提供，本模式不支持：
+ * 锁转交与读写升降级（读操作只计数，不记录读Token的持有者）、乐观模式（readVersion返回-1，commit失败）、
+ * 会话、死锁检测、相容动作、自适应租约、容量限制、状态导出导入与主从复制。
+ * 通过接口调用前三项时返回"不支持的操作"，其余功能没有对应的设置方法
+ */
+public class OffHeapConflictControlServiceImpl implements ConflictControlService {
+
+    private static final Logger logger = LoggerFactory.getLogger(OffHeapConflictControlServiceImpl.class);
+
+    private static final int SEGMENT_COUNT = 256;
+
+    private final OffHeapSegment[] segments = new OffHeapSegment[SEGMENT_COUNT];
+
+    // 动作字典（操作者ID取值无界，不进字典）
+    private final StringDictionary dictionary = new StringDictionary();
+
+    // 优先调度器
+    private volatile PriorityScheduler priorityScheduler = PrioritySchedulers.FIFO;
+
+    // 配置参数
+    private volatile int maxQueueSize = 5;
+    private volatile long lockMaxHoldTime = 30000;  // 30秒
+    private volatile long maxWaitTime = 300000;      // 5分钟
+
+    // 对象策略表（全局配置作为默认策略）
+    private final PolicyTable policyTable = new PolicyTable(
+            new ObjectPolicy(lockMaxHoldTime, null, maxQueueSize, priorityScheduler));
+
+    // 等待请求序号
+    private final AtomicLong requestSequence = new AtomicLong();
+
+    // 时间源
+    private final Clock clock;
+
+    // 竞争热点分析器
+    private final ContentionProfiler contentionProfiler;
+
+    public OffHeapConflictControlServiceImpl() {
+        this(1 << 12);
+    }
+
+    /**
+     * @param expectedObjects 预计同时跟踪的对象数量（决定各分段首次分配的槽位数，不足时自动扩容）
+     */
+    public OffHeapConflictControlServiceImpl(int expectedObjects) {
+        this(expectedObjects, CoarseClock.shared());
+    }
+
+    /**
+     * @param expectedObjects 预计同时跟踪的对象数量（决定各分段首次分配的槽位数，不足时自动扩容）
+     * @param clock 时间源
+     */
+    public OffHeapConflictControlServiceImpl(int expectedObjects, Clock clock) {
+        this.clock = Objects.requireNonNull(clock);
+        this.contentionProfiler = new ContentionProfiler(32, 60000, clock);
+        int perSegment = (int) (expectedObjects / 0.7 / SEGMENT_COUNT) + 1;
+        for (int i = 0; i < SEGMENT_COUNT; i++) {
+            segments[i] = new OffHeapSegment(perSegment);
+        }
+    }
+
+    @Override
+    public OperationResult operate(String objectId, String action, String token, String operatorId) {
+        if (objectId == null || action == null || operatorId == null) {
+            return OperationResult.fail("参数不能为空");
+        }
+
+        logger.info("操作请求: objectId={}, action={}, token={}, operatorId={}",
+                objectId, action, token, operatorId);
+
+        long hash = Hashing.hash64(objectId);
+        OffHeapSegment segment = segments[(int) (hash >>> 56) & (SEGMENT_COUNT - 1)];
+        segment.lock.lock();
+        try {
+            if ("read".equalsIgnoreCase(action)) {
+                return handleReadOperation(segment, hash, objectId);
+            } else if ("exit".equalsIgnoreCase(action)) {
+                return handleExitOperation(segment, hash, objectId, token);
+            } else {
+                return handleWriteOperation(segment, hash, objectId, action, token, operatorId);
+            }
+        } finally {
+            segment.lock.unlock();
+        }
+    }
+
+    /**
+     * 处理读操作（不互斥）
+     */
+    private OperationResult handleReadOperation(OffHeapSegment segment, long hash, String objectId) {
+        int slot = segment.findOrInsert(hash, objectId);
+        cleanExpiredLock(segment, slot, objectId, segment.policy(slot, objectId, policyTable));
+
+        int readCount = segment.getInt(slot, OffHeapSegment.READ_COUNT) + 1;
+        segment.putInt(slot, OffHeapSegment.READ_COUNT, readCount);
+
+        logger.info("读操作成功: objectId={}, 当前读数量={}", objectId, readCount);
+        return OperationResult.success("READ_" + UUID.randomUUID().toString().substring(0, 8));
+    }
+
+    /**
+     * 处理退出操作
+     */
+    private OperationResult handleExitOperation(OffHeapSegment segment, long hash, String objectId, String token) {
+        int slot = segment.find(hash, objectId);
+        boolean readExit = token != null && token.startsWith("READ_");
+        if (slot < 0) {
+            // 空闲对象的槽位已被删除，按空闲对象处理（与堆上实现对已释放对象的结果一致）
+            return readExit ? OperationResult.success(null) : OperationResult.fail("对象未被锁定");
+        }
+
+        // 如果是读操作的退出
+        if (readExit) {
+            int readCount = segment.getInt(slot, OffHeapSegment.READ_COUNT);
+            if (readCount > 0) {
+                segment.putInt(slot, OffHeapSegment.READ_COUNT, readCount - 1);
+                logger.info("读操作退出: objectId={}, 剩余读数量={}", objectId, readCount - 1);
+            }
+            segment.removeIfIdle(slot);
+            return OperationResult.success(null);
+        }
+
+        // 写操作的退出
+        long currentToken = segment.getLong(slot, OffHeapSegment.TOKEN);
+        if (currentToken == 0) {
+            return OperationResult.fail("对象未被锁定");
+        }
+        if (currentToken != TokenCodec.decode(token)) {
+            return OperationResult.fail("Token不匹配");
+        }
+
+        String lastAction = dictionary.valueOf(segment.getInt(slot, OffHeapSegment.ACTION));
+        releaseLock(segment, slot);
+        logger.info("写操作退出，锁已释放: objectId={}, token={}", objectId, token);
+
+        processWaitingQueue(segment, slot, objectId, lastAction, segment.policy(slot, objectId, policyTable));
+        segment.removeIfIdle(slot);
+        return OperationResult.success(null);
+    }
+
+    /**
+     * 处理写操作
+     */
+    private OperationResult handleWriteOperation(OffHeapSegment segment, long hash, String objectId,
+                                                 String action, String token, String operatorId) {
+        int slot = segment.findOrInsert(hash, objectId);
+        ObjectPolicy policy = segment.policy(slot, objectId, policyTable);
+        cleanExpiredLock(segment, slot, objectId, policy);
+
+        long currentToken = segment.getLong(slot, OffHeapSegment.TOKEN);
+
+        // 情况1：对象空闲，首次操作
+        if (currentToken == 0 && token == null) {
+            long newToken = grantLock(segment, slot, objectId, action, operatorId, false);
+            String encoded = TokenCodec.encode(newToken);
+            logger.info("获取新锁: objectId={}, action={}, token={}, operatorId={}",
+                    objectId, action, encoded, operatorId);
+            return OperationResult.success(encoded);
+        }
+
+        // 情况2：持有有效Token，刷新操作
+        if (currentToken != 0 && token != null && currentToken == TokenCodec.decode(token)) {
+            segment.putLong(slot, OffHeapSegment.REFRESH_TIME, clock.millis());
+            segment.putInt(slot, OffHeapSegment.ACTION, dictionary.idOf(action));
+            logger.info("Token刷新成功: objectId={}, action={}, token={}, operatorId={}",
+                    objectId, action, token, operatorId);
+            return OperationResult.success(token);
+        }
+
+        // 情况3：检查是否为待认领状态
+        if (currentToken != 0 && token == null
+                && (segment.getByte(slot, OffHeapSegment.FLAGS) & OffHeapSegment.FLAG_PENDING_CLAIM) != 0
+                && operatorId.equals(segment.getOwner(slot))) {
+            segment.putByte(slot, OffHeapSegment.FLAGS, (byte) 0);
+            segment.putLong(slot, OffHeapSegment.REFRESH_TIME, clock.millis());
+            String claimedToken = TokenCodec.encode(currentToken);
+            logger.info("锁认领成功: objectId={}, action={}, token={}, operatorId={}",
+                    objectId, action, claimedToken, operatorId);
+            return OperationResult.success(claimedToken);
+        }
+
+        // 情况4：Token无效
+        if (token != null) {
+            logger.warn("Token无效或已过期: objectId={}, token={}", objectId, token);
+        }
+
+        // 情况5：进入等待队列
+        return enqueueWaitingRequest(segment, slot, objectId, action, operatorId, policy);
+    }
+
+    /**
+     * 分配锁
+     *
+     * @return 新Token编码
+     */
+    private long grantLock(OffHeapSegment segment, int slot, String objectId, String action,
+                           String operatorId, boolean pendingClaim) {
+        long newToken = TokenCodec.generate();
+        long now = clock.millis();
+        segment.putLong(slot, OffHeapSegment.TOKEN, newToken);
+        segment.setOwner(slot, operatorId);
+        segment.putInt(slot, OffHeapSegment.ACTION, dictionary.idOf(action));
+        segment.putLong(slot, OffHeapSegment.ACQUIRE_TIME, now);
+        segment.putLong(slot, OffHeapSegment.REFRESH_TIME, now);
+        segment.putByte(slot, OffHeapSegment.FLAGS, pendingClaim ? OffHeapSegment.FLAG_PENDING_CLAIM : 0);
+        contentionProfiler.record(ContentionMetric.ACQUIRE, objectId, 1);
+        return newToken;
+    }
+
+    private void releaseLock(OffHeapSegment segment, int slot) {
+        segment.putLong(slot, OffHeapSegment.TOKEN, 0);
+        segment.setOwner(slot, null);
+        segment.putByte(slot, OffHeapSegment.FLAGS, (byte) 0);
+    }
+
+    /**
+     * 加入等待队列
+     */
+    private OperationResult enqueueWaitingRequest(OffHeapSegment segment, int slot, String objectId,
+                                                  String action, String operatorId, ObjectPolicy policy) {
+        WaitingQueue queue = segment.getQueue(slot);
+        if (queue == null) {
+            queue = policy.getPriorityScheduler().newQueue();
+            segment.setQueue(slot, queue);
+        }
+
+        // 清理超时的等待请求
+        long maxWaitTime = this.maxWaitTime;
+        long now = clock.millis();
+        queue.removeIf(req -> req.isTimeout(maxWaitTime, now));
+
+        if (queue.size() >= policy.getMaxQueueSize()) {
+            logger.warn("等待队列已满: objectId={}, queueSize={}", objectId, queue.size());
+            contentionProfiler.record(ContentionMetric.QUEUE_FULL, objectId, 1);
+            return OperationResult.fail("等待队列已满");
+        }
+
+        WaitingRequest waitingRequest = new WaitingRequest();
+        waitingRequest.setRequestId(requestSequence.incrementAndGet());
+        waitingRequest.setAction(dictionary.intern(action));
+        waitingRequest.setOperatorId(operatorId);
+        waitingRequest.setEnqueueTime(now);
+        queue.offer(waitingRequest);
+
+        int position = queue.size();
+        logger.info("进入等待队列: objectId={}, action={}, operatorId={}, position={}",
+                objectId, action, operatorId, position);
+        return OperationResult.waiting(position);
+    }
+
+    /**
+     * 清理过期锁
+     */
+    private void cleanExpiredLock(OffHeapSegment segment, int slot, String objectId, ObjectPolicy policy) {
+        long currentToken = segment.getLong(slot, OffHeapSegment.TOKEN);
+        if (currentToken == 0) {
+            return;
+        }
+        boolean pendingClaim = (segment.getByte(slot, OffHeapSegment.FLAGS) & OffHeapSegment.FLAG_PENDING_CLAIM) != 0;
+        long maxHoldTime = pendingClaim ? policy.getMaxClaimTime() : policy.getLockMaxHoldTime();
+        if (clock.millis() - segment.getLong(slot, OffHeapSegment.REFRESH_TIME) <= maxHoldTime) {
+            return;
+        }
+        logger.warn("锁已超时自动释放: objectId={}, token={}", objectId, TokenCodec.encode(currentToken));
+        contentionProfiler.record(ContentionMetric.EXPIRATION, objectId, 1);
+        String lastAction = dictionary.valueOf(segment.getInt(slot, OffHeapSegment.ACTION));
+        releaseLock(segment, slot);
+        processWaitingQueue(segment, slot, objectId, lastAction, policy);
+    }
+
+    /**
+     * 处理等待队列
+     * 自动分配锁给队列中的下一个操作者，队列清空后释放堆上的队列对象
+     */
+    private void processWaitingQueue(OffHeapSegment segment, int slot, String objectId,
+                                     String lastAction, ObjectPolicy policy) {
+        WaitingQueue queue = segment.getQueue(slot);
+        if (queue == null) {
+            return;
+        }
+
+        // 清理超时请求
+        long maxWaitTime = this.maxWaitTime;
+        long now = clock.millis();
+        queue.removeIf(req -> req.isTimeout(maxWaitTime, now));
+
+        WaitingRequest nextRequest = queue.poll(lastAction);
+        if (nextRequest != null) {
+            logger.info("从等待队列自动分配锁: objectId={}, action={}, operatorId={}",
+                    objectId, nextRequest.getAction(), nextRequest.getOperatorId());
+            contentionProfiler.record(ContentionMetric.WAIT_TIME, objectId,
+                    Math.max(0, now - nextRequest.getEnqueueTime()));
+            grantLock(segment, slot, objectId, nextRequest.getAction(), nextRequest.getOperatorId(), true);
+        }
+        if (queue.isEmpty()) {
+            segment.setQueue(slot, null);
+        }
+    }
+
+    @Override
+    public void setPriorityStrategy(PriorityStrategy strategy) {
+        setPriorityScheduler(PrioritySchedulers.of(strategy));
+    }
+
+    /**
+     * 设置优先调度器
+     * 已存在的等待队列沿用创建时的调度器，队列清空后再次创建时生效
+     */
+    @Override
+    public void setPriorityScheduler(PriorityScheduler scheduler) {
+        this.priorityScheduler = Objects.requireNonNull(scheduler);
+        updateDefaultPolicy();
+        logger.info("优先策略已设置为: {}", scheduler);
+    }
+
+    @Override
+    public void setConfiguration(int maxQueueSize, long lockMaxHoldTime, long maxWaitTime) {
+        this.maxQueueSize = maxQueueSize;
+        this.lockMaxHoldTime = lockMaxHoldTime;
+        this.maxWaitTime = maxWaitTime;
+        updateDefaultPolicy();
+        logger.info("配置已更新: maxQueueSize={}, lockMaxHoldTime={}ms, maxWaitTime={}ms",
+                maxQueueSize, lockMaxHoldTime, maxWaitTime);
+    }
+
+    @Override
+    public void setObjectPolicy(String objectIdPrefix, ObjectPolicy policy) {
+        policyTable.put(objectIdPrefix, policy);
+        logger.info("对象策略已设置: prefix={}, policy={}", objectIdPrefix, policy);
+    }
+
+    @Override
+    public void removeObjectPolicy(String objectIdPrefix) {
+        if (policyTable.remove(objectIdPrefix)) {
+            logger.info("对象策略已移除: prefix={}", objectIdPrefix);
+        }
+    }
+
+    /**
+     * 当前跟踪的对象数量
+     */
+    public long getObjectCount() {
+        long count = 0;
+        for (OffHeapSegment segment : segments) {
+            segment.lock.lock();
+            try {
+                count += segment.size();
+            } finally {
+                segment.lock.unlock();
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 占用的直接内存字节数
+     */
+    public long getOffHeapBytes() {
+        long bytes = 0;
+        for (OffHeapSegment segment : segments) {
+            segment.lock.lock();
+            try {
+                bytes += segment.offHeapBytes();
+            } finally {
+                segment.lock.unlock();
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * 获取竞争热点分析器
+     */
+    public ContentionProfiler getContentionProfiler() {
+        return contentionProfiler;
+    }
+
+    private void updateDefaultPolicy() {
+        policyTable.setDefaults(new ObjectPolicy(lockMaxHoldTime, null, maxQueueSize, priorityScheduler));
+    }
+}
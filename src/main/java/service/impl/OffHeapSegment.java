@@ -0,0 +1,368 @@
+package service.impl;
+
+import service.ObjectPolicy;
+import service.scheduler.WaitingQueue;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 堆外锁表分段
+ * 对象状态保存在直接内存中的定长槽位里（开放寻址、线性探测、删除时后移补位，无墓碑），
+ * objectId以UTF-16字符保存在同样位于直接内存的键区；只有持有者ID、等待队列等溢出数据保存在堆上。
+ * 槽位编号在插入、删除后可能变化，调用方不得跨这些操作保留槽位编号。非线程安全，调用方须持有lock
+ */
+final class OffHeapSegment {
+
+    // 槽位布局（64字节）
+    static final int SLOT_SIZE = 64;
+    private static final int HASH = 0;          // long 键哈希（0表示空槽）
+    private static final int KEY_OFFSET = 8;    // int  键在键区中的字符偏移
+    private static final int KEY_LENGTH = 12;   // int  键字符数
+    static final int TOKEN = 16;                // long 锁Token编码（0表示空闲）
+    private static final int OWNER = 24;        // int  持有者ID编号+1（0表示无持有者）
+    static final int ACTION = 28;               // int  动作（字典编号）
+    static final int ACQUIRE_TIME = 32;         // long 获取时间
+    static final int REFRESH_TIME = 40;         // long 最后刷新时间
+    static final int READ_COUNT = 48;           // int  读操作数量
+    private static final int QUEUE = 52;        // int  等待队列编号+1（0表示无队列）
+    static final int FLAGS = 56;                // byte 标志位
+    static final byte FLAG_PENDING_CLAIM = 1;
+    private static final int POLICY = 60;       // int  生效策略编号+1（0表示未解析）
+
+    private static final double LOAD_FACTOR = 0.7;
+
+    final ReentrantLock lock = new ReentrantLock();
+
+    private ByteBuffer table;
+    private int mask;
+    private int size;
+
+    private ByteBuffer keys;
+    private int keysUsed;           // 已使用的键区字符数
+    private int keysGarbage;        // 已删除键占用的字符数
+
+    // 溢出数据：持有者ID、等待队列（槽位保存编号，随槽位释放而回收）
+    private final RefPool<String> owners = new RefPool<>();
+    private final RefPool<WaitingQueue> queues = new RefPool<>();
+
+    // 生效策略缓存：槽位保存编号，策略表版本变化时整段失效
+    private long policyVersion = -1;
+    private ObjectPolicy[] policies = new ObjectPolicy[4];
+    private final Map<ObjectPolicy, Integer> policyIndex = new IdentityHashMap<>();
+
+    /**
+     * @param initialCapacity 初始槽位数；直接内存在首次插入时才分配，未使用的分段不占用直接内存
+     */
+    OffHeapSegment(int initialCapacity) {
+        int capacity = Integer.highestOneBit(Math.max(16, initialCapacity - 1) << 1);
+        this.mask = capacity - 1;
+    }
+
+    /**
+     * 查找对象所在槽位
+     *
+     * @return 槽位编号，不存在时返回-1
+     */
+    int find(long hash, String key) {
+        if (table == null) {
+            return -1;
+        }
+        for (int slot = (int) hash & mask; ; slot = (slot + 1) & mask) {
+            long slotHash = table.getLong(slot * SLOT_SIZE + HASH);
+            if (slotHash == 0) {
+                return -1;
+            }
+            if (slotHash == hash && keyEquals(slot, key)) {
+                return slot;
+            }
+        }
+    }
+
+    /**
+     * 查找对象所在槽位，不存在时插入空闲状态
+     */
+    int findOrInsert(long hash, String key) {
+        int slot = find(hash, key);
+        if (slot >= 0) {
+            return slot;
+        }
+        if (table == null) {
+            this.table = ByteBuffer.allocateDirect((mask + 1) * SLOT_SIZE);
+            this.keys = ByteBuffer.allocateDirect((mask + 1) * 32);
+        }
+        if (size + 1 > (mask + 1) * LOAD_FACTOR) {
+            rebuild((mask + 1) * 2);
+        }
+        slot = (int) hash & mask;
+        while (table.getLong(slot * SLOT_SIZE + HASH) != 0) {
+            slot = (slot + 1) & mask;
+        }
+        int base = slot * SLOT_SIZE;
+        for (int i = 0; i < SLOT_SIZE; i += 8) {
+            table.putLong(base + i, 0);
+        }
+        table.putLong(base + HASH, hash);
+        table.putInt(base + KEY_OFFSET, appendKey(key));
+        table.putInt(base + KEY_LENGTH, key.length());
+        size++;
+        return slot;
+    }
+
+    /**
+     * 对象空闲（无锁、无读操作、无等待）时删除槽位
+     */
+    void removeIfIdle(int slot) {
+        int base = slot * SLOT_SIZE;
+        if (table.getLong(base + TOKEN) != 0 || table.getInt(base + READ_COUNT) != 0
+                || table.getInt(base + QUEUE) != 0) {
+            return;
+        }
+        keysGarbage += table.getInt(base + KEY_LENGTH);
+        size--;
+
+        // 后移补位：把探测链上后续可前移的元素移入空位
+        int hole = slot;
+        int next = slot;
+        while (true) {
+            next = (next + 1) & mask;
+            long nextHash = table.getLong(next * SLOT_SIZE + HASH);
+            if (nextHash == 0) {
+                break;
+            }
+            int home = (int) nextHash & mask;
+            boolean stays = hole <= next ? (hole < home && home <= next) : (hole < home || home <= next);
+            if (stays) {
+                continue;
+            }
+            copySlot(next, hole);
+            hole = next;
+        }
+        table.putLong(hole * SLOT_SIZE + HASH, 0);
+
+        // 已删除的键过多时整理键区
+        if (keysGarbage > 4096 && keysGarbage * 2 > keysUsed) {
+            rebuild(mask + 1);
+        }
+    }
+
+    long getLong(int slot, int field) {
+        return table.getLong(slot * SLOT_SIZE + field);
+    }
+
+    void putLong(int slot, int field, long value) {
+        table.putLong(slot * SLOT_SIZE + field, value);
+    }
+
+    int getInt(int slot, int field) {
+        return table.getInt(slot * SLOT_SIZE + field);
+    }
+
+    void putInt(int slot, int field, int value) {
+        table.putInt(slot * SLOT_SIZE + field, value);
+    }
+
+    byte getByte(int slot, int field) {
+        return table.get(slot * SLOT_SIZE + field);
+    }
+
+    void putByte(int slot, int field, byte value) {
+        table.put(slot * SLOT_SIZE + field, value);
+    }
+
+    String getOwner(int slot) {
+        return owners.get(table.getInt(slot * SLOT_SIZE + OWNER));
+    }
+
+    /**
+     * 设置锁持有者（null表示释放）
+     */
+    void setOwner(int slot, String ownerId) {
+        int base = slot * SLOT_SIZE + OWNER;
+        table.putInt(base, owners.replace(table.getInt(base), ownerId));
+    }
+
+    WaitingQueue getQueue(int slot) {
+        return queues.get(table.getInt(slot * SLOT_SIZE + QUEUE));
+    }
+
+    /**
+     * 设置对象的等待队列（null表示释放队列）
+     */
+    void setQueue(int slot, WaitingQueue queue) {
+        int base = slot * SLOT_SIZE + QUEUE;
+        table.putInt(base, queues.replace(table.getInt(base), queue));
+    }
+
+    /**
+     * 对象的生效策略
+     * 首次访问时解析并把策略编号记入槽位，之后直接取用；策略表版本变化时清空本段所有槽位的编号
+     */
+    ObjectPolicy policy(int slot, String objectId, PolicyTable policyTable) {
+        // 先取版本再解析：解析期间策略表变更时，下次访问会因版本不符而重新解析
+        long version = policyTable.version();
+        if (version != policyVersion) {
+            for (int i = 0; i <= mask; i++) {
+                table.putInt(i * SLOT_SIZE + POLICY, 0);
+            }
+            Arrays.fill(policies, 0, policyIndex.size(), null);
+            policyIndex.clear();
+            policyVersion = version;
+        }
+        int base = slot * SLOT_SIZE;
+        int ref = table.getInt(base + POLICY);
+        if (ref != 0) {
+            return policies[ref - 1];
+        }
+        ObjectPolicy policy = policyTable.resolve(objectId);
+        Integer index = policyIndex.get(policy);
+        if (index == null) {
+            index = policyIndex.size();
+            if (index == policies.length) {
+                policies = Arrays.copyOf(policies, index * 2);
+            }
+            policies[index] = policy;
+            policyIndex.put(policy, index);
+        }
+        table.putInt(base + POLICY, index + 1);
+        return policy;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * 占用的直接内存字节数
+     */
+    long offHeapBytes() {
+        return table == null ? 0 : table.capacity() + (long) keys.capacity();
+    }
+
+    private boolean keyEquals(int slot, String key) {
+        int base = slot * SLOT_SIZE;
+        int length = table.getInt(base + KEY_LENGTH);
+        if (length != key.length()) {
+            return false;
+        }
+        int offset = table.getInt(base + KEY_OFFSET) * 2;
+        for (int i = 0; i < length; i++) {
+            if (keys.getChar(offset + i * 2) != key.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int appendKey(String key) {
+        int needed = keysUsed + key.length();
+        if (needed * 2L > keys.capacity()) {
+            ByteBuffer grown = ByteBuffer.allocateDirect((int) Math.min(Integer.MAX_VALUE - 8,
+                    Math.max(keys.capacity() * 2L, needed * 2L)));
+            keys.position(0).limit(keysUsed * 2);
+            grown.put(keys);
+            keys.clear();
+            this.keys = grown;
+        }
+        int offset = keysUsed;
+        for (int i = 0; i < key.length(); i++) {
+            keys.putChar((offset + i) * 2, key.charAt(i));
+        }
+        keysUsed = needed;
+        return offset;
+    }
+
+    private void copySlot(int from, int to) {
+        int fromBase = from * SLOT_SIZE;
+        int toBase = to * SLOT_SIZE;
+        for (int i = 0; i < SLOT_SIZE; i += 8) {
+            table.putLong(toBase + i, table.getLong(fromBase + i));
+        }
+    }
+
+    /**
+     * 按新容量重建槽位表并整理键区
+     */
+    private void rebuild(int capacity) {
+        ByteBuffer oldTable = table;
+        ByteBuffer oldKeys = keys;
+        int oldCapacity = mask + 1;
+
+        this.table = ByteBuffer.allocateDirect(capacity * SLOT_SIZE);
+        this.mask = capacity - 1;
+        this.keys = ByteBuffer.allocateDirect(Math.max(capacity * 32, (keysUsed - keysGarbage) * 2));
+        this.keysUsed = 0;
+        this.keysGarbage = 0;
+
+        for (int old = 0; old < oldCapacity; old++) {
+            int oldBase = old * SLOT_SIZE;
+            long hash = oldTable.getLong(oldBase + HASH);
+            if (hash == 0) {
+                continue;
+            }
+            int slot = (int) hash & mask;
+            while (table.getLong(slot * SLOT_SIZE + HASH) != 0) {
+                slot = (slot + 1) & mask;
+            }
+            int base = slot * SLOT_SIZE;
+            for (int i = 0; i < SLOT_SIZE; i += 8) {
+                table.putLong(base + i, oldTable.getLong(oldBase + i));
+            }
+            // 复制键到新键区
+            int length = oldTable.getInt(oldBase + KEY_LENGTH);
+            int oldOffset = oldTable.getInt(oldBase + KEY_OFFSET);
+            for (int i = 0; i < length; i++) {
+                keys.putChar((keysUsed + i) * 2, oldKeys.getChar((oldOffset + i) * 2));
+            }
+            table.putInt(base + KEY_OFFSET, keysUsed);
+            keysUsed += length;
+        }
+    }
+
+    /**
+     * 堆上引用池：槽位中只保存编号+1（0表示null），释放的编号复用
+     */
+    private static final class RefPool<T> {
+        private Object[] values = new Object[8];
+        private int[] free = new int[8];
+        private int freeCount;
+        private int count;
+
+        @SuppressWarnings("unchecked")
+        T get(int ref) {
+            return ref == 0 ? null : (T) values[ref - 1];
+        }
+
+        /**
+         * 释放旧编号并登记新值
+         *
+         * @return 新值的编号+1，value为null时返回0
+         */
+        int replace(int ref, T value) {
+            if (ref != 0) {
+                values[ref - 1] = null;
+                if (freeCount == free.length) {
+                    free = Arrays.copyOf(free, freeCount * 2);
+                }
+                free[freeCount++] = ref - 1;
+            }
+            if (value == null) {
+                return 0;
+            }
+            int index;
+            if (freeCount > 0) {
+                index = free[--freeCount];
+            } else {
+                index = count++;
+                if (index == values.length) {
+                    values = Arrays.copyOf(values, index * 2);
+                }
+            }
+            values[index] = value;
+            return index + 1;
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package service.impl;
+
+import java.util.*;
+
+import service.ObjectPolicy;
+
+/**
+ * 对象策略表
+ * 按objectId前缀配置策略，解析时取最长匹配前缀；
+ * 每次变更生成新的只读快照并递增版本号，对象状态据此判断是否需要重新解析
+ */
+class PolicyTable {
+
+    // 前缀 -> 原始策略（受this保护）
+    private final Map<String, ObjectPolicy> rules = new HashMap<>();
+
+    // 全局默认策略（受this保护）
+    private ObjectPolicy defaults;
+
+    private volatile Snapshot snapshot;
+
+    PolicyTable(ObjectPolicy defaults) {
+        this.defaults = defaults;
+        rebuild(0);
+    }
+
+    synchronized void setDefaults(ObjectPolicy defaults) {
+        this.defaults = defaults;
+        rebuild(snapshot.version + 1);
+    }
+
+    synchronized void put(String prefix, ObjectPolicy policy) {
+        rules.put(Objects.requireNonNull(prefix), Objects.requireNonNull(policy));
+        rebuild(snapshot.version + 1);
+    }
+
+    synchronized boolean remove(String prefix) {
+        if (rules.remove(prefix) == null) {
+            return false;
+        }
+        rebuild(snapshot.version + 1);
+        return true;
+    }
+
+    /**
+     * 当前版本号
+     */
+    long version() {
+        return snapshot.version;
+    }
+
+    /**
+     * 解析对象的生效策略（最长前缀匹配，已合并全局配置）
+     */
+    ObjectPolicy resolve(String objectId) {
+        Snapshot current = snapshot;
+        for (int length : current.prefixLengths) {
+            if (length > objectId.length()) {
+                continue;
+            }
+            ObjectPolicy policy = current.resolved.get(objectId.substring(0, length));
+            if (policy != null) {
+                return policy;
+            }
+        }
+        return current.defaults;
+    }
+
+    private void rebuild(long version) {
+        ObjectPolicy effectiveDefaults = defaults.withDefaults(defaults);
+        Map<String, ObjectPolicy> resolved = new HashMap<>();
+        TreeSet<Integer> lengths = new TreeSet<>(Comparator.reverseOrder());
+        for (Map.Entry<String, ObjectPolicy> entry : rules.entrySet()) {
+            resolved.put(entry.getKey(), entry.getValue().withDefaults(effectiveDefaults));
+            lengths.add(entry.getKey().length());
+        }
+        int[] prefixLengths = lengths.stream().mapToInt(Integer::intValue).toArray();
+        this.snapshot = new Snapshot(version, effectiveDefaults, resolved, prefixLengths);
+    }
+
+    /**
+     * 策略快照（只读）
+     */
+    private static class Snapshot {
+        final long version;
+        final ObjectPolicy defaults;
+        final Map<String, ObjectPolicy> resolved;
+        final int[] prefixLengths;      // 按长度降序
+
+        Snapshot(long version, ObjectPolicy defaults, Map<String, ObjectPolicy> resolved, int[] prefixLengths) {
+            this.version = version;
+            this.defaults = defaults;
+            this.resolved = resolved;
+            this.prefixLengths = prefixLengths;
+        }
+    }
+}
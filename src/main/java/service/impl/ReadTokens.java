@@ -0,0 +1,63 @@
+package service.impl;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 对象已发放的读Token
+ * 记录每个读Token所属的操作者，退出和升级时据此校验；
+ * 从未携带Token的快照导入的读操作只计数，由任意读Token的退出抵消。
+ * 只记录最近一次发放的时间：距今超过时限即说明全部读操作都已超过时限
+ */
+final class ReadTokens {
+
+    private final Map<String, String> owners = new HashMap<>(4);
+    private int untracked;
+    private long lastGranted;   // 最近一次发放读操作的时间（服务时钟）
+
+    int size() {
+        return owners.size() + untracked;
+    }
+
+    void add(String token, String operatorId, long now) {
+        owners.put(token, operatorId);
+        lastGranted = now;
+    }
+
+    void addUntracked(int count, long now) {
+        untracked += count;
+        lastGranted = now;
+    }
+
+    long lastGranted() {
+        return lastGranted;
+    }
+
+    /**
+     * 读Token所属的操作者，未登记时返回null
+     */
+    String ownerOf(String token) {
+        return owners.get(token);
+    }
+
+    /**
+     * 结束一个读操作：已登记的Token直接移除，否则抵消一个只计数的读操作
+     *
+     * @return 是否结束了读操作
+     */
+    boolean remove(String token) {
+        if (owners.remove(token) != null) {
+            return true;
+        }
+        if (untracked > 0) {
+            untracked--;
+            return true;
+        }
+        return false;
+    }
+
+    Map<String, String> owners() {
+        return Collections.unmodifiableMap(owners);
+    }
+}
@@ -0,0 +1,57 @@
+package service.impl;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 字符串字典
+ * 为动作等取值有限的字符串分配整数编号（0表示null），编号只增不回收，
+ * 因此不得用于操作者ID这类取值无界的字符串；
+ * 也用于把这些字符串规范化为共享实例，避免每个锁和等待请求各持有一份
+ */
+final class StringDictionary {
+
+    private final ConcurrentHashMap<String, Integer> ids = new ConcurrentHashMap<>();
+    private volatile String[] values = new String[1024];
+    private int nextId = 1; // 受this保护
+
+    int idOf(String value) {
+        if (value == null) {
+            return 0;
+        }
+        Integer id = ids.get(value);
+        return id != null ? id : register(value);
+    }
+
+    /**
+     * 获取字符串的共享实例
+     */
+    String intern(String value) {
+        return valueOf(idOf(value));
+    }
+
+    String valueOf(int id) {
+        return id == 0 ? null : values[id];
+    }
+
+    int size() {
+        return ids.size();
+    }
+
+    private synchronized int register(String value) {
+        Integer id = ids.get(value);
+        if (id != null) {
+            return id;
+        }
+        int newId = nextId++;
+        String[] current = values;
+        if (newId >= current.length) {
+            current = Arrays.copyOf(current, current.length * 2);
+        }
+        current[newId] = value;
+        values = current;
+        // 先发布values再发布编号，保证读到编号时一定能取到值
+        ids.put(value, newId);
+        return newId;
+    }
+}
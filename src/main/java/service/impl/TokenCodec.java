@@ -0,0 +1,55 @@
+package service.impl;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Token编解码
+ * 10位Token（字符集A-Z0-9）与long一一对应，便于以原始类型保存
+ */
+final class TokenCodec {
+
+    static final String CHARS = "ABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789";
+    static final int LENGTH = 10;
+
+    // 36^10，所有合法Token的取值上界
+    private static final long BOUND = 3656158440062976L;
+
+    private TokenCodec() {
+    }
+
+    /**
+     * 生成随机Token编码（不为0，0表示无Token）
+     */
+    static long generate() {
+        return ThreadLocalRandom.current().nextLong(1, BOUND);
+    }
+
+    static String encode(long value) {
+        char[] chars = new char[LENGTH];
+        for (int i = LENGTH - 1; i >= 0; i--) {
+            chars[i] = CHARS.charAt((int) (value % 36));
+            value /= 36;
+        }
+        return new String(chars);
+    }
+
+    /**
+     * 解码Token
+     *
+     * @return Token编码，格式不合法时返回-1
+     */
+    static long decode(String token) {
+        if (token == null || token.length() != LENGTH) {
+            return -1;
+        }
+        long value = 0;
+        for (int i = 0; i < LENGTH; i++) {
+            int digit = CHARS.indexOf(token.charAt(i));
+            if (digit < 0) {
+                return -1;
+            }
+            value = value * 36 + digit;
+        }
+        return value;
+    }
+}
@@ -0,0 +1,135 @@
+package service.impl;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 等待图
+ * 记录有人排队的对象的锁持有者和每个操作者正在等待的对象，操作者A等待的对象由B持有即构成边A→B；
+ * 排队前从持有者出发沿边搜索，回到请求者即为死锁。
+ * 持有者与等待关系保存在ConcurrentHashMap中，无人排队的加锁解锁不访问等待图；
+ * 排队请求的环搜索与等待登记在walkLock下作为一步完成，两个请求同时排队闭合一个环时，
+ * 后搜索的一方必然看到先搜索一方已登记的等待，不会同时漏检
+ */
+class WaitForGraph {
+
+    /**
+     * 锁持有者
+     */
+    static final class Holder {
+        final String ownerId;
+        final long acquireTime;
+
+        Holder(String ownerId, long acquireTime) {
+            this.ownerId = ownerId;
+            this.acquireTime = acquireTime;
+        }
+    }
+
+    private final ConcurrentHashMap<String, Holder> holders = new ConcurrentHashMap<>();
+    // 操作者 -> (等待的对象 -> 请求数)，同一操作者可能对同一对象重复排队；内层表只读，更新时整体替换
+    private final ConcurrentHashMap<String, Map<String, Integer>> waits = new ConcurrentHashMap<>();
+    private final ReentrantLock walkLock = new ReentrantLock();
+
+    void setHolder(String objectId, String ownerId, long acquireTime) {
+        if (ownerId == null) {
+            holders.remove(objectId);
+        } else {
+            holders.put(objectId, new Holder(ownerId, acquireTime));
+        }
+    }
+
+    Holder holderOf(String objectId) {
+        return holders.get(objectId);
+    }
+
+    void addWait(String operatorId, String objectId) {
+        waits.compute(operatorId, (k, objects) -> {
+            Map<String, Integer> updated = objects == null ? new HashMap<>(4) : new HashMap<>(objects);
+            updated.merge(objectId, 1, Integer::sum);
+            return updated;
+        });
+    }
+
+    void removeWait(String operatorId, String objectId) {
+        waits.computeIfPresent(operatorId, (k, objects) -> {
+            Integer count = objects.get(objectId);
+            if (count == null) {
+                return objects;
+            }
+            Map<String, Integer> updated = new HashMap<>(objects);
+            if (count > 1) {
+                updated.put(objectId, count - 1);
+            } else {
+                updated.remove(objectId);
+            }
+            return updated.isEmpty() ? null : updated;
+        });
+    }
+
+    /**
+     * 查找请求者排队等待对象后形成的环，无环时在同一临界区内登记等待
+     * 调用方须在此之前登记对象的持有者；发现环时不登记，请求最终仍排队时由调用方调用 {@link #addWait}
+     *
+     * @param requester 请求排队的操作者
+     * @param objectId 请求等待的对象
+     * @param maxVisited 最多访问的操作者数量（超过时放弃搜索并登记等待）
+     * @return 环上的对象（从objectId开始），无环时返回null
+     */
+    List<String> findCycleOrRegister(String requester, String objectId, int maxVisited) {
+        walkLock.lock();
+        try {
+            Holder start = holders.get(objectId);
+            if (start != null && !start.ownerId.equals(requester)) {
+                List<String> cycle = walk(requester, objectId, start, maxVisited);
+                if (cycle != null) {
+                    return cycle;
+                }
+            }
+            addWait(requester, objectId);
+            return null;
+        } finally {
+            walkLock.unlock();
+        }
+    }
+
+    private List<String> walk(String requester, String objectId, Holder start, int maxVisited) {
+        // 到达每个操作者所经过的对象与上一个操作者
+        Map<String, String> viaObject = new HashMap<>();
+        Map<String, String> viaOperator = new HashMap<>();
+        Deque<String> stack = new ArrayDeque<>();
+        viaObject.put(start.ownerId, objectId);
+        stack.push(start.ownerId);
+
+        while (!stack.isEmpty()) {
+            String operator = stack.pop();
+            Map<String, Integer> waiting = waits.get(operator);
+            if (waiting == null) {
+                continue;
+            }
+            for (String waitedObject : waiting.keySet()) {
+                Holder holder = holders.get(waitedObject);
+                if (holder == null || viaObject.containsKey(holder.ownerId)) {
+                    continue;
+                }
+                if (holder.ownerId.equals(requester)) {
+                    List<String> cycle = new ArrayList<>();
+                    cycle.add(waitedObject);
+                    for (String op = operator; op != null; op = viaOperator.get(op)) {
+                        cycle.add(viaObject.get(op));
+                    }
+                    Collections.reverse(cycle);
+                    return cycle;
+                }
+                if (viaObject.size() >= maxVisited) {
+                    return null;
+                }
+                viaObject.put(holder.ownerId, waitedObject);
+                viaOperator.put(holder.ownerId, operator);
+                stack.push(holder.ownerId);
+            }
+        }
+        return null;
+    }
+}
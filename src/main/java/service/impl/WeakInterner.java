@@ -0,0 +1,44 @@
+package service.impl;
+
+import java.lang.ref.WeakReference;
+import java.util.WeakHashMap;
+
+/**
+ * 弱引用字符串规范化表
+ * 把相等的字符串映射到同一共享实例；共享实例不再被任何锁或等待请求引用时随GC自动移除，
+ * 适用于操作者ID这类取值无界的字符串。按哈希分段加锁
+ */
+final class WeakInterner {
+
+    private static final int STRIPES = 16;
+
+    private final WeakHashMap<String, WeakReference<String>>[] tables;
+
+    @SuppressWarnings("unchecked")
+    WeakInterner() {
+        tables = (WeakHashMap<String, WeakReference<String>>[]) new WeakHashMap<?, ?>[STRIPES];
+        for (int i = 0; i < STRIPES; i++) {
+            tables[i] = new WeakHashMap<>();
+        }
+    }
+
+    /**
+     * 获取字符串的共享实例
+     */
+    String intern(String value) {
+        if (value == null) {
+            return null;
+        }
+        int hash = value.hashCode();
+        WeakHashMap<String, WeakReference<String>> table = tables[(hash ^ (hash >>> 16)) & (STRIPES - 1)];
+        synchronized (table) {
+            WeakReference<String> ref = table.get(value);
+            String shared = ref != null ? ref.get() : null;
+            if (shared == null) {
+                table.put(value, new WeakReference<>(value));
+                shared = value;
+            }
+            return shared;
+        }
+    }
+}
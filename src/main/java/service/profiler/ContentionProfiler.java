@@ -0,0 +1,122 @@
+package service.profiler;
+
+import model.ContentionMetric;
+import model.ContentionSnapshot;
+import model.HotObject;
+import service.clock.Clock;
+import service.clock.MonotonicClock;
+
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 竞争热点分析器
+ * 按指标跟踪Top-K热点对象，内存占用固定，不随对象数量增长：
+ * 每个指标按objectId哈希分为若干条带，每个条带是一个Space-Saving计数器，
+ * 计数每隔一个衰减窗口减半，使统计结果偏向近期行为
+ */
+public class ContentionProfiler {
+
+    private static final int STRIPES = 16;
+    private static final double DECAY_FACTOR = 0.5;
+
+    private final Clock clock;
+    private final long decayWindow;
+    private final Stripe[][] stripes;
+    private final LongAdder[] totals;
+
+    /**
+     * 默认跟踪Top-32，衰减窗口60秒
+     */
+    public ContentionProfiler() {
+        this(32, 60000, MonotonicClock.INSTANCE);
+    }
+
+    /**
+     * @param topK 每个指标保证跟踪的热点数量
+     * @param decayWindow 衰减窗口(ms)，每个窗口计数减半
+     * @param clock 计算衰减窗口的时钟
+     */
+    public ContentionProfiler(int topK, long decayWindow, Clock clock) {
+        this.clock = clock;
+        this.decayWindow = decayWindow;
+        ContentionMetric[] metrics = ContentionMetric.values();
+        this.stripes = new Stripe[metrics.length][STRIPES];
+        this.totals = new LongAdder[metrics.length];
+        long now = clock.millis();
+        for (int m = 0; m < metrics.length; m++) {
+            totals[m] = new LongAdder();
+            for (int s = 0; s < STRIPES; s++) {
+                // 每个条带容量为topK的两倍，降低替换带来的误差
+                stripes[m][s] = new Stripe(topK * 2, now + decayWindow);
+            }
+        }
+    }
+
+    /**
+     * 记录一次事件
+     *
+     * @param metric 指标
+     * @param objectId 对象ID
+     * @param weight 权重（次数指标为1，等待时间为毫秒数）
+     */
+    public void record(ContentionMetric metric, String objectId, long weight) {
+        totals[metric.ordinal()].add(weight);
+        Stripe stripe = stripes[metric.ordinal()][(objectId.hashCode() & 0x7fffffff) % STRIPES];
+        long now = clock.millis();
+        synchronized (stripe) {
+            stripe.decayIfDue(now, decayWindow);
+            stripe.sketch.add(objectId, weight);
+        }
+    }
+
+    /**
+     * 获取当前热点快照
+     *
+     * @param k 每个指标返回的对象数量
+     */
+    public ContentionSnapshot snapshot(int k) {
+        long now = clock.millis();
+        Map<ContentionMetric, List<HotObject>> topObjects = new EnumMap<>(ContentionMetric.class);
+        Map<ContentionMetric, Long> totalCounts = new EnumMap<>(ContentionMetric.class);
+        for (ContentionMetric metric : ContentionMetric.values()) {
+            List<HotObject> candidates = new ArrayList<>();
+            for (Stripe stripe : stripes[metric.ordinal()]) {
+                synchronized (stripe) {
+                    stripe.decayIfDue(now, decayWindow);
+                    stripe.sketch.collect(candidates);
+                }
+            }
+            candidates.sort(Comparator.comparingDouble(HotObject::getCount).reversed());
+            topObjects.put(metric, new ArrayList<>(candidates.subList(0, Math.min(k, candidates.size()))));
+            totalCounts.put(metric, totals[metric.ordinal()].sum());
+        }
+        return new ContentionSnapshot(System.currentTimeMillis(), topObjects, totalCounts);
+    }
+
+    /**
+     * 指标总量（不衰减）
+     */
+    public long total(ContentionMetric metric) {
+        return totals[metric.ordinal()].sum();
+    }
+
+    private static class Stripe {
+        final SpaceSavingSketch sketch;
+        long nextDecayTime;
+
+        Stripe(int capacity, long nextDecayTime) {
+            this.sketch = new SpaceSavingSketch(capacity);
+            this.nextDecayTime = nextDecayTime;
+        }
+
+        void decayIfDue(long now, long decayWindow) {
+            if (now < nextDecayTime) {
+                return;
+            }
+            long windows = 1 + (now - nextDecayTime) / decayWindow;
+            sketch.decay(Math.pow(DECAY_FACTOR, windows));
+            nextDecayTime += windows * decayWindow;
+        }
+    }
+}
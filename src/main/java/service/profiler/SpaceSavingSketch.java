@@ -0,0 +1,94 @@
+package service.profiler;
+
+import model.HotObject;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Space-Saving Top-K 计数器（支持加权与指数衰减）
+ * 最多跟踪capacity个对象，计数按最小堆组织；新对象到来且已满时替换计数最小者，
+ * 继承其计数作为误差上界。更新为O(log capacity)，非线程安全
+ */
+class SpaceSavingSketch {
+
+    private final Counter[] heap;
+    private final Map<String, Counter> counters;
+    private int size;
+
+    SpaceSavingSketch(int capacity) {
+        this.heap = new Counter[capacity];
+        this.counters = new HashMap<>(capacity * 2);
+    }
+
+    void add(String objectId, double weight) {
+        Counter counter = counters.get(objectId);
+        if (counter == null) {
+            if (size < heap.length) {
+                counter = new Counter(objectId, 0, 0);
+                counter.index = size;
+                heap[size++] = counter;
+            } else {
+                // 替换计数最小的对象
+                counter = heap[0];
+                counters.remove(counter.objectId);
+                counter.objectId = objectId;
+                counter.error = counter.count;
+            }
+            counters.put(objectId, counter);
+        }
+        counter.count += weight;
+        siftDown(counter.index);
+    }
+
+    /**
+     * 所有计数按同一比例衰减（不改变堆序）
+     */
+    void decay(double factor) {
+        for (int i = 0; i < size; i++) {
+            heap[i].count *= factor;
+            heap[i].error *= factor;
+        }
+    }
+
+    void collect(List<HotObject> into) {
+        for (int i = 0; i < size; i++) {
+            into.add(new HotObject(heap[i].objectId, heap[i].count, heap[i].error));
+        }
+    }
+
+    private void siftDown(int index) {
+        Counter counter = heap[index];
+        while (true) {
+            int child = 2 * index + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && heap[child + 1].count < heap[child].count) {
+                child++;
+            }
+            if (heap[child].count >= counter.count) {
+                break;
+            }
+            heap[index] = heap[child];
+            heap[index].index = index;
+            index = child;
+        }
+        heap[index] = counter;
+        counter.index = index;
+    }
+
+    private static class Counter {
+        String objectId;
+        double count;
+        double error;
+        int index;
+
+        Counter(String objectId, double count, double error) {
+            this.objectId = objectId;
+            this.count = count;
+            this.error = error;
+        }
+    }
+}
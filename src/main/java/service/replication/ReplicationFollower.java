@@ -0,0 +1,127 @@
+package service.replication;
+
+import model.ObjectSnapshot;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import service.impl.ConflictControlServiceImpl;
+
+import java.io.*;
+import java.net.Socket;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 复制从节点
+ * 连接主节点，先应用全量快照，再持续应用状态变更到本地的备用服务；
+ * 主节点失效后调用 {@link #promote()} 断开复制，备用服务即可对外提供服务，已持有的Token继续有效。
+ * 配置和对象策略不在复制范围内，备用服务需按主节点相同的配置创建
+ */
+public class ReplicationFollower implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReplicationFollower.class);
+
+    private final ConflictControlServiceImpl standby;
+    private final Socket socket;
+    private final DataInputStream in;
+    private final DataOutputStream out;
+    private final Thread applyThread;
+    private final CountDownLatch caughtUp = new CountDownLatch(1);
+    private final AtomicLong appliedTransitions = new AtomicLong();
+    private volatile long appliedSequence;
+    private volatile boolean closed;
+
+    /**
+     * @param standby 备用服务（接收复制的状态）
+     * @param host 主节点地址
+     * @param port 主节点复制端口
+     */
+    public ReplicationFollower(ConflictControlServiceImpl standby, String host, int port) throws IOException {
+        this.standby = standby;
+        this.socket = new Socket(host, port);
+        this.socket.setTcpNoDelay(true);
+        this.in = new DataInputStream(new BufferedInputStream(socket.getInputStream(), 65536));
+        this.out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+        this.applyThread = new Thread(this::applyLoop, "replication-apply");
+        this.applyThread.setDaemon(true);
+        this.applyThread.start();
+    }
+
+    /**
+     * 等待全量快照应用完成
+     *
+     * @return 是否在超时前完成
+     */
+    public boolean awaitCaughtUp(long timeout, TimeUnit unit) throws InterruptedException {
+        return caughtUp.await(timeout, unit);
+    }
+
+    /**
+     * 提升为主节点：停止复制并返回备用服务
+     */
+    public ConflictControlServiceImpl promote() throws IOException {
+        close();
+        try {
+            applyThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        logger.info("从节点已提升: appliedSequence={}, appliedTransitions={}", appliedSequence, appliedTransitions.get());
+        return standby;
+    }
+
+    /**
+     * 已应用的最新变更序号
+     */
+    public long getAppliedSequence() {
+        return appliedSequence;
+    }
+
+    /**
+     * 已应用的变更数（不含全量快照）
+     */
+    public long getAppliedTransitions() {
+        return appliedTransitions.get();
+    }
+
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        socket.close();
+    }
+
+    private void applyLoop() {
+        try {
+            while (true) {
+                byte frame = in.readByte();
+                long sequence = in.readLong();
+                int count = in.readInt();
+                if (frame == ReplicationProtocol.FRAME_SNAPSHOT) {
+                    for (int i = 0; i < count; i++) {
+                        standby.importObject(ReplicationProtocol.readSnapshot(in));
+                    }
+                    logger.info("全量快照已应用: objects={}", count);
+                } else if (frame == ReplicationProtocol.FRAME_BATCH) {
+                    for (int i = 0; i < count; i++) {
+                        in.readByte(); // 变更类型（按快照覆盖，无需区分）
+                        ObjectSnapshot snapshot = ReplicationProtocol.readSnapshot(in);
+                        standby.importObject(snapshot);
+                    }
+                    appliedTransitions.addAndGet(count);
+                } else {
+                    throw new IOException("未知的复制帧类型: " + frame);
+                }
+                appliedSequence = sequence;
+                out.writeLong(sequence);
+                out.flush();
+                if (frame == ReplicationProtocol.FRAME_SNAPSHOT) {
+                    caughtUp.countDown();
+                }
+            }
+        } catch (IOException e) {
+            if (!closed) {
+                logger.warn("复制连接断开: {}", e.toString());
+            }
+        }
+    }
+}
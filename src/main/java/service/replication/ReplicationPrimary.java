@@ -0,0 +1,331 @@
+package service.replication;
+
+import model.ObjectSnapshot;
+import model.StateTransition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import service.impl.ConflictControlServiceImpl;
+
+import java.io.*;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 复制主节点
+ * 监听从节点连接，新连接的从节点先收到全量快照，之后持续收到状态变更。
+ * 每个从节点有独立的待发送表，同一对象未发出的变更只保留最新一次（刷新密集时不会占满链路），
+ * 发送线程成批写出且不等待上一批确认；确认由独立线程读取。
+ *
+ * SYNC模式下，状态变更在所有从节点确认（或超时）后才返回给调用方，等待发生在释放对象锁之后，
+ * 不阻塞同一对象上的其他请求；刷新只延长租约，始终异步复制，故障切换最多使从节点上的租约提前到期
+ */
+public class ReplicationPrimary implements StateTransitionListener, Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReplicationPrimary.class);
+
+    public enum AckMode {
+        ASYNC,  // 放入发送表即返回
+        SYNC    // 等待从节点确认
+    }
+
+    private final ConflictControlServiceImpl service;
+    private final ServerSocket serverSocket;
+    private final AckMode ackMode;
+    private final long ackTimeoutMillis;
+    private final int maxBatchSize;
+    private final Thread acceptThread;
+    private final List<FollowerLink> links = new CopyOnWriteArrayList<>();
+
+    // 批次序号（各从节点共用，全量快照携带分配时的当前值）
+    private final AtomicLong sequence = new AtomicLong();
+    private final AtomicLong coalescedTransitions = new AtomicLong();
+    private final AtomicLong ackTimeouts = new AtomicLong();
+    private volatile boolean closed;
+
+    public ReplicationPrimary(ConflictControlServiceImpl service, int port, AckMode ackMode) throws IOException {
+        this(service, port, ackMode, 1000, 512);
+    }
+
+    /**
+     * @param service 被复制的服务
+     * @param port 监听端口（0表示随机端口）
+     * @param ackMode 确认模式
+     * @param ackTimeoutMillis SYNC模式下等待确认的超时时间
+     * @param maxBatchSize 每批最多发送的变更数
+     */
+    public ReplicationPrimary(ConflictControlServiceImpl service, int port, AckMode ackMode,
+                              long ackTimeoutMillis, int maxBatchSize) throws IOException {
+        this.service = service;
+        this.ackMode = ackMode;
+        this.ackTimeoutMillis = ackTimeoutMillis;
+        this.maxBatchSize = maxBatchSize;
+        this.serverSocket = new ServerSocket(port);
+        this.acceptThread = new Thread(this::acceptLoop, "replication-accept");
+        this.acceptThread.setDaemon(true);
+        service.setStateTransitionListener(this);
+        this.acceptThread.start();
+        logger.info("复制主节点已启动: port={}, ackMode={}", serverSocket.getLocalPort(), ackMode);
+    }
+
+    @Override
+    public CompletableFuture<Void> onTransition(StateTransition transition) {
+        if (links.isEmpty()) {
+            return null;
+        }
+        boolean sync = ackMode == AckMode.SYNC && transition.getType() != StateTransition.Type.REFRESH;
+        List<CompletableFuture<Void>> acks = sync ? new ArrayList<>() : null;
+        for (FollowerLink link : links) {
+            CompletableFuture<Void> acked = link.enqueue(transition);
+            if (sync) {
+                // 超时只作用于本次等待，不影响合并到同一待发送项的其他等待者
+                acks.add(acked.thenRun(() -> { })
+                        .orTimeout(ackTimeoutMillis, TimeUnit.MILLISECONDS)
+                        .exceptionally(e -> {
+                            ackTimeouts.incrementAndGet();
+                            logger.warn("等待从节点确认超时: follower={}, objectId={}",
+                                    link.name, transition.getSnapshot().getObjectId());
+                            return null;
+                        }));
+            }
+        }
+        return sync ? CompletableFuture.allOf(acks.toArray(new CompletableFuture<?>[0])) : null;
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    public int getFollowerCount() {
+        return links.size();
+    }
+
+    /**
+     * 因合并而未单独发送的变更数
+     */
+    public long getCoalescedTransitions() {
+        return coalescedTransitions.get();
+    }
+
+    /**
+     * SYNC模式下等待确认超时的次数
+     */
+    public long getAckTimeouts() {
+        return ackTimeouts.get();
+    }
+
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        service.setStateTransitionListener(null);
+        serverSocket.close();
+        for (FollowerLink link : links) {
+            link.close();
+        }
+    }
+
+    private void acceptLoop() {
+        while (!closed) {
+            try {
+                Socket socket = serverSocket.accept();
+                socket.setTcpNoDelay(true);
+                FollowerLink link = new FollowerLink(socket);
+                link.start();
+            } catch (IOException e) {
+                if (!closed) {
+                    logger.error("接受从节点连接失败", e);
+                }
+            }
+        }
+    }
+
+    /**
+     * 到单个从节点的复制链路
+     */
+    private class FollowerLink {
+
+        private final Socket socket;
+        private final String name;
+        private final DataOutputStream out;
+        private final DataInputStream in;
+
+        // 待发送变更（按objectId合并，保持首次插入顺序）
+        private final Map<String, Pending> pending = new LinkedHashMap<>();
+        // 已发出未确认的批次（按序号递增）
+        private final ArrayDeque<Batch> unacked = new ArrayDeque<>();
+        private boolean linkClosed;
+
+        FollowerLink(Socket socket) throws IOException {
+            this.socket = socket;
+            this.name = String.valueOf(socket.getRemoteSocketAddress());
+            this.out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream(), 65536));
+            this.in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+        }
+
+        void start() {
+            Thread sender = new Thread(this::sendLoop, "replication-send-" + name);
+            sender.setDaemon(true);
+            sender.start();
+            Thread receiver = new Thread(this::ackLoop, "replication-ack-" + name);
+            receiver.setDaemon(true);
+            receiver.start();
+        }
+
+        /**
+         * 放入待发送表
+         *
+         * @return 该变更（或合并了它的更新状态）被从节点确认时完成的Future；链路关闭时直接完成
+         */
+        synchronized CompletableFuture<Void> enqueue(StateTransition transition) {
+            if (linkClosed) {
+                return CompletableFuture.completedFuture(null);
+            }
+            Pending previous = pending.get(transition.getSnapshot().getObjectId());
+            if (previous != null) {
+                previous.transition = transition;
+                coalescedTransitions.incrementAndGet();
+                return previous.acked;
+            }
+            Pending entry = new Pending(transition);
+            pending.put(transition.getSnapshot().getObjectId(), entry);
+            notifyAll();
+            return entry.acked;
+        }
+
+        private void sendLoop() {
+            try {
+                // 先注册链路再导出快照：导出时未读到的变更都会进入待发送表（重复发送的状态幂等）
+                links.add(this);
+                long snapshotSequence = sequence.get();
+                List<ObjectSnapshot> snapshots = service.exportObjects(objectId -> true, false);
+                out.writeByte(ReplicationProtocol.FRAME_SNAPSHOT);
+                out.writeLong(snapshotSequence);
+                out.writeInt(snapshots.size());
+                for (ObjectSnapshot snapshot : snapshots) {
+                    ReplicationProtocol.writeSnapshot(out, snapshot);
+                }
+                out.flush();
+                logger.info("从节点已连接，全量快照已发送: follower={}, objects={}", name, snapshots.size());
+
+                List<Pending> batch = new ArrayList<>();
+                while (true) {
+                    long batchSequence;
+                    synchronized (this) {
+                        while (pending.isEmpty() && !linkClosed) {
+                            wait();
+                        }
+                        if (linkClosed) {
+                            return;
+                        }
+                        batchSequence = sequence.incrementAndGet();
+                        drain(batch, batchSequence);
+                    }
+                    out.writeByte(ReplicationProtocol.FRAME_BATCH);
+                    out.writeLong(batchSequence);
+                    out.writeInt(batch.size());
+                    for (Pending entry : batch) {
+                        out.writeByte(entry.transition.getType().ordinal());
+                        ReplicationProtocol.writeSnapshot(out, entry.transition.getSnapshot());
+                    }
+                    out.flush();
+                    batch.clear();
+                }
+            } catch (IOException | InterruptedException e) {
+                if (!closed) {
+                    logger.warn("复制链路断开: follower={}, error={}", name, e.toString());
+                }
+            } finally {
+                close();
+            }
+        }
+
+        /**
+         * 取出一批待发送变更，登记为等待确认的批次（调用方须持有this）
+         */
+        private void drain(List<Pending> batch, long batchSequence) {
+            Iterator<Pending> iterator = pending.values().iterator();
+            while (iterator.hasNext() && batch.size() < maxBatchSize) {
+                batch.add(iterator.next());
+                iterator.remove();
+            }
+            unacked.add(new Batch(batchSequence, new ArrayList<>(batch)));
+        }
+
+        private void ackLoop() {
+            try {
+                while (true) {
+                    long acked = in.readLong();
+                    List<Batch> confirmed = new ArrayList<>();
+                    synchronized (this) {
+                        while (!unacked.isEmpty() && unacked.peek().sequence <= acked) {
+                            confirmed.add(unacked.poll());
+                        }
+                    }
+                    // 在链路锁之外完成，避免等待者的后续动作与发送线程争用
+                    confirmed.forEach(Batch::complete);
+                }
+            } catch (IOException e) {
+                close();
+            }
+        }
+
+        void close() {
+            List<Pending> abandoned = new ArrayList<>();
+            synchronized (this) {
+                if (linkClosed) {
+                    return;
+                }
+                linkClosed = true;
+                abandoned.addAll(pending.values());
+                unacked.forEach(batch -> abandoned.addAll(batch.entries));
+                pending.clear();
+                unacked.clear();
+                notifyAll();
+            }
+            links.remove(this);
+            // 断开的从节点不再参与确认
+            abandoned.forEach(entry -> entry.acked.complete(null));
+            try {
+                socket.close();
+            } catch (IOException e) {
+                logger.debug("关闭复制链路失败: {}", e.toString());
+            }
+        }
+    }
+
+    private static class Pending {
+        final CompletableFuture<Void> acked = new CompletableFuture<>();
+        StateTransition transition; // 最新状态
+
+        Pending(StateTransition transition) {
+            this.transition = transition;
+        }
+    }
+
+    /**
+     * 已发出等待确认的批次
+     */
+    private static class Batch {
+        final long sequence;
+        final List<Pending> entries;
+
+        Batch(long sequence, List<Pending> entries) {
+            this.sequence = sequence;
+            this.entries = entries;
+        }
+
+        void complete() {
+            entries.forEach(entry -> entry.acked.complete(null));
+        }
+    }
+}
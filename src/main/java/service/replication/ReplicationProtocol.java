@@ -0,0 +1,130 @@
+package service.replication;
+
+import model.ObjectSnapshot;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * 复制协议编解码
+ *
+ * 主节点到从节点的帧：
+ *   SNAPSHOT: 帧类型(1) 确认序号(8) 对象数(4) [对象快照]...
+ *   BATCH:    帧类型(1) 确认序号(8) 变更数(4) [变更类型(1) 对象快照]...
+ * 从节点应用完一帧后回复该帧的确认序号(8)，主节点无需等待确认即可继续发送（流水线）
+ */
+final class ReplicationProtocol {
+
+    static final byte FRAME_SNAPSHOT = 1;
+    static final byte FRAME_BATCH = 2;
+
+    private ReplicationProtocol() {
+    }
+
+    static void writeSnapshot(DataOutputStream out, ObjectSnapshot snapshot) throws IOException {
+        out.writeUTF(snapshot.getObjectId());
+        out.writeInt(snapshot.getReadCount());
+        out.writeInt(snapshot.getReadTokens().size());
+        for (Map.Entry<String, String> entry : snapshot.getReadTokens().entrySet()) {
+            out.writeUTF(entry.getKey());
+            out.writeUTF(entry.getValue());
+        }
+        out.writeBoolean(snapshot.getLockToken() != null);
+        if (snapshot.getLockToken() != null) {
+            out.writeUTF(snapshot.getLockToken());
+            out.writeUTF(snapshot.getLockAction());
+            out.writeUTF(snapshot.getLockOwnerId());
+            out.writeLong(snapshot.getLockHeldMillis());
+            out.writeLong(snapshot.getLockIdleMillis());
+            out.writeBoolean(snapshot.isLockPendingClaim());
+            writeNullable(out, snapshot.getLockSessionId());
+            out.writeInt(snapshot.getSharedHolders().size());
+            for (ObjectSnapshot.Holder holder : snapshot.getSharedHolders()) {
+                out.writeUTF(holder.getToken());
+                out.writeUTF(holder.getAction());
+                out.writeUTF(holder.getOwnerId());
+                out.writeLong(holder.getHeldMillis());
+                out.writeLong(holder.getIdleMillis());
+                out.writeBoolean(holder.isPendingClaim());
+                writeNullable(out, holder.getSessionId());
+            }
+        }
+        out.writeInt(snapshot.getWaiters().size());
+        for (ObjectSnapshot.Waiter waiter : snapshot.getWaiters()) {
+            out.writeUTF(waiter.getAction());
+            out.writeUTF(waiter.getOperatorId());
+            out.writeLong(waiter.getWaitedMillis());
+            writeNullable(out, waiter.getSessionId());
+        }
+        out.writeInt(snapshot.getSessions().size());
+        for (ObjectSnapshot.SessionLease lease : snapshot.getSessions()) {
+            out.writeUTF(lease.getSessionId());
+            out.writeUTF(lease.getOperatorId());
+            out.writeLong(lease.getTtl());
+            out.writeLong(lease.getIdleMillis());
+        }
+    }
+
+    static ObjectSnapshot readSnapshot(DataInputStream in) throws IOException {
+        ObjectSnapshot snapshot = new ObjectSnapshot();
+        snapshot.setObjectId(in.readUTF());
+        snapshot.setReadCount(in.readInt());
+        int readTokens = in.readInt();
+        for (int i = 0; i < readTokens; i++) {
+            snapshot.getReadTokens().put(in.readUTF(), in.readUTF());
+        }
+        if (in.readBoolean()) {
+            snapshot.setLockToken(in.readUTF());
+            snapshot.setLockAction(in.readUTF());
+            snapshot.setLockOwnerId(in.readUTF());
+            snapshot.setLockHeldMillis(in.readLong());
+            snapshot.setLockIdleMillis(in.readLong());
+            snapshot.setLockPendingClaim(in.readBoolean());
+            snapshot.setLockSessionId(readNullable(in));
+            int sharedHolders = in.readInt();
+            for (int i = 0; i < sharedHolders; i++) {
+                ObjectSnapshot.Holder holder = new ObjectSnapshot.Holder();
+                holder.setToken(in.readUTF());
+                holder.setAction(in.readUTF());
+                holder.setOwnerId(in.readUTF());
+                holder.setHeldMillis(in.readLong());
+                holder.setIdleMillis(in.readLong());
+                holder.setPendingClaim(in.readBoolean());
+                holder.setSessionId(readNullable(in));
+                snapshot.getSharedHolders().add(holder);
+            }
+        }
+        int waiters = in.readInt();
+        for (int i = 0; i < waiters; i++) {
+            ObjectSnapshot.Waiter waiter = new ObjectSnapshot.Waiter();
+            waiter.setAction(in.readUTF());
+            waiter.setOperatorId(in.readUTF());
+            waiter.setWaitedMillis(in.readLong());
+            waiter.setSessionId(readNullable(in));
+            snapshot.getWaiters().add(waiter);
+        }
+        int sessions = in.readInt();
+        for (int i = 0; i < sessions; i++) {
+            ObjectSnapshot.SessionLease lease = new ObjectSnapshot.SessionLease();
+            lease.setSessionId(in.readUTF());
+            lease.setOperatorId(in.readUTF());
+            lease.setTtl(in.readLong());
+            lease.setIdleMillis(in.readLong());
+            snapshot.getSessions().add(lease);
+        }
+        return snapshot;
+    }
+
+    private static void writeNullable(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readNullable(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+}
@@ -0,0 +1,17 @@
+package service.replication;
+
+import model.StateTransition;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 对象状态变更监听器
+ * 在持有对象锁时调用，同一对象的变更按发生顺序通知
+ */
+public interface StateTransitionListener {
+
+    /**
+     * @return 调用方须在释放对象锁后等待其完成的Future（不需要等待时返回null），不得以异常完成
+     */
+    CompletableFuture<Void> onTransition(StateTransition transition);
+}
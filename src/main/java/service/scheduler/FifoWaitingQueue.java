@@ -0,0 +1,46 @@
+package service.scheduler;
+
+import model.WaitingRequest;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.function.Predicate;
+
+/**
+ * 先进先出等待队列，出队O(1)
+ */
+public class FifoWaitingQueue implements WaitingQueue {
+
+    // 等待队列通常很短，从小容量开始按需扩容
+    private final ArrayDeque<WaitingRequest> queue = new ArrayDeque<>(2);
+
+    @Override
+    public void offer(WaitingRequest request) {
+        queue.offer(request);
+    }
+
+    @Override
+    public WaitingRequest poll(String lastAction) {
+        return queue.poll();
+    }
+
+    @Override
+    public WaitingRequest peek(String lastAction) {
+        return queue.peek();
+    }
+
+    @Override
+    public boolean removeIf(Predicate<? super WaitingRequest> filter) {
+        return queue.removeIf(filter);
+    }
+
+    @Override
+    public int size() {
+        return queue.size();
+    }
+
+    @Override
+    public Iterator<WaitingRequest> iterator() {
+        return queue.iterator();
+    }
+}
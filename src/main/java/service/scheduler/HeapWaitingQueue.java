@@ -0,0 +1,90 @@
+package service.scheduler;
+
+import model.WaitingRequest;
+
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.PriorityQueue;
+import java.util.function.Predicate;
+
+/**
+ * 基于二叉堆的等待队列
+ * 入队时计算排序键，键越小越先出队，键相同时按入队顺序；入队、出队均为O(log n)
+ */
+public abstract class HeapWaitingQueue implements WaitingQueue {
+
+    private final PriorityQueue<Entry> heap = new PriorityQueue<>(
+            Comparator.comparingDouble((Entry e) -> e.key).thenComparingLong(e -> e.sequence));
+
+    private long nextSequence;
+
+    /**
+     * 计算请求的排序键
+     */
+    protected abstract double keyOf(WaitingRequest request);
+
+    /**
+     * 请求出队后的回调
+     */
+    protected void onPolled(WaitingRequest request, double key) {
+    }
+
+    @Override
+    public void offer(WaitingRequest request) {
+        heap.offer(new Entry(keyOf(request), nextSequence++, request));
+    }
+
+    @Override
+    public WaitingRequest poll(String lastAction) {
+        Entry entry = heap.poll();
+        if (entry == null) {
+            return null;
+        }
+        onPolled(entry.request, entry.key);
+        return entry.request;
+    }
+
+    @Override
+    public WaitingRequest peek(String lastAction) {
+        Entry entry = heap.peek();
+        return entry == null ? null : entry.request;
+    }
+
+    @Override
+    public boolean removeIf(Predicate<? super WaitingRequest> filter) {
+        return heap.removeIf(e -> filter.test(e.request));
+    }
+
+    @Override
+    public int size() {
+        return heap.size();
+    }
+
+    @Override
+    public Iterator<WaitingRequest> iterator() {
+        Iterator<Entry> iterator = heap.iterator();
+        return new Iterator<WaitingRequest>() {
+            @Override
+            public boolean hasNext() {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public WaitingRequest next() {
+                return iterator.next().request;
+            }
+        };
+    }
+
+    private static class Entry {
+        final double key;
+        final long sequence;
+        final WaitingRequest request;
+
+        Entry(double key, long sequence, WaitingRequest request) {
+            this.key = key;
+            this.sequence = sequence;
+            this.request = request;
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package service.scheduler;
+
+import model.WaitingRequest;
+
+import java.util.function.ToIntFunction;
+
+/**
+ * 优先级分类调度器
+ * 按分类器给出的优先级（0最高）出队，同级按入队顺序；
+ * 每低一级相当于晚入队agingStep毫秒，等待足够久的低优先级请求终会排到前面，避免饿死
+ */
+public class PriorityClassScheduler implements PriorityScheduler {
+
+    private final ToIntFunction<WaitingRequest> classifier;
+    private final long agingStep;
+
+    /**
+     * @param classifier 优先级分类器（返回值越小优先级越高，负数按0处理）
+     * @param agingStep 相邻优先级之间的老化时间(ms)
+     */
+    public PriorityClassScheduler(ToIntFunction<WaitingRequest> classifier, long agingStep) {
+        this.classifier = classifier;
+        this.agingStep = agingStep;
+    }
+
+    @Override
+    public WaitingQueue newQueue() {
+        return new HeapWaitingQueue() {
+            @Override
+            protected double keyOf(WaitingRequest request) {
+                int priorityClass = Math.max(0, classifier.applyAsInt(request));
+                return (double) request.getEnqueueTime() + (double) priorityClass * agingStep;
+            }
+        };
+    }
+
+    @Override
+    public String toString() {
+        return "PRIORITY_CLASS(agingStep=" + agingStep + "ms)";
+    }
+}
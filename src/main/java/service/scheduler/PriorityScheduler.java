@@ -0,0 +1,16 @@
+package service.scheduler;
+
+/**
+ * 优先调度器SPI
+ * 调度器为每个对象创建等待队列，队列自身持有数据结构并决定出队顺序
+ *
+ * 内置实现见 {@link PrioritySchedulers}、{@link PriorityClassScheduler}、{@link WeightedFairScheduler}
+ */
+public interface PriorityScheduler {
+
+    /**
+     * 创建一个空的等待队列
+     * 队列只会在所属对象的锁内被访问，实现无需线程安全
+     */
+    WaitingQueue newQueue();
+}
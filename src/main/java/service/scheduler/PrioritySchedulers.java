@@ -0,0 +1,56 @@
+package service.scheduler;
+
+import model.PriorityStrategy;
+
+import java.util.function.Supplier;
+
+/**
+ * 内置优先策略对应的调度器
+ */
+public final class PrioritySchedulers {
+
+    /**
+     * 先进先出
+     */
+    public static final PriorityScheduler FIFO = named(PriorityStrategy.FIFO, FifoWaitingQueue::new);
+
+    /**
+     * 相同动作优先
+     */
+    public static final PriorityScheduler SAME_ACTION_FIRST =
+            named(PriorityStrategy.SAME_ACTION_FIRST, SameActionFirstWaitingQueue::new);
+
+    private PrioritySchedulers() {
+    }
+
+    /**
+     * 内置优先策略对应的调度器
+     */
+    public static PriorityScheduler of(PriorityStrategy strategy) {
+        switch (strategy) {
+            case FIFO:
+                return FIFO;
+            case SAME_ACTION_FIRST:
+                return SAME_ACTION_FIRST;
+            default:
+                throw new IllegalArgumentException("未知的优先策略: " + strategy);
+        }
+    }
+
+    /**
+     * 调度器的描述与策略名一致，轨迹回放时据此还原内置策略
+     */
+    private static PriorityScheduler named(PriorityStrategy strategy, Supplier<WaitingQueue> queueFactory) {
+        return new PriorityScheduler() {
+            @Override
+            public WaitingQueue newQueue() {
+                return queueFactory.get();
+            }
+
+            @Override
+            public String toString() {
+                return strategy.name();
+            }
+        };
+    }
+}
@@ -0,0 +1,103 @@
+package service.scheduler;
+
+import model.WaitingRequest;
+
+import java.util.*;
+import java.util.function.Predicate;
+
+/**
+ * 相同动作优先等待队列
+ * 全局按入队顺序保存请求，同时按动作分组保存序号，
+ * 优先取出与上一个锁持有者动作相同的最早请求，出队O(1)
+ */
+public class SameActionFirstWaitingQueue implements WaitingQueue {
+
+    // 序号 -> 请求（按入队顺序）
+    private final LinkedHashMap<Long, WaitingRequest> requests = new LinkedHashMap<>();
+
+    // 动作 -> 该动作的请求序号（按入队顺序）
+    private final Map<String, ArrayDeque<Long>> sequencesByAction = new HashMap<>();
+
+    private long nextSequence;
+
+    @Override
+    public void offer(WaitingRequest request) {
+        long sequence = nextSequence++;
+        requests.put(sequence, request);
+        sequencesByAction.computeIfAbsent(request.getAction(), k -> new ArrayDeque<>()).offer(sequence);
+    }
+
+    @Override
+    public WaitingRequest poll(String lastAction) {
+        if (lastAction != null) {
+            ArrayDeque<Long> sequences = sequencesByAction.get(lastAction);
+            if (sequences != null) {
+                Long sequence = sequences.poll();
+                if (sequences.isEmpty()) {
+                    sequencesByAction.remove(lastAction);
+                }
+                return requests.remove(sequence);
+            }
+        }
+
+        // 没有相同动作，返回队首
+        Iterator<Map.Entry<Long, WaitingRequest>> iterator = requests.entrySet().iterator();
+        if (!iterator.hasNext()) {
+            return null;
+        }
+        Map.Entry<Long, WaitingRequest> head = iterator.next();
+        iterator.remove();
+        removeSequence(head.getValue().getAction(), head.getKey());
+        return head.getValue();
+    }
+
+    @Override
+    public WaitingRequest peek(String lastAction) {
+        if (lastAction != null) {
+            ArrayDeque<Long> sequences = sequencesByAction.get(lastAction);
+            if (sequences != null) {
+                return requests.get(sequences.peek());
+            }
+        }
+        Iterator<WaitingRequest> iterator = requests.values().iterator();
+        return iterator.hasNext() ? iterator.next() : null;
+    }
+
+    @Override
+    public boolean removeIf(Predicate<? super WaitingRequest> filter) {
+        boolean removed = false;
+        Iterator<Map.Entry<Long, WaitingRequest>> iterator = requests.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Long, WaitingRequest> entry = iterator.next();
+            if (filter.test(entry.getValue())) {
+                iterator.remove();
+                removeSequence(entry.getValue().getAction(), entry.getKey());
+                removed = true;
+            }
+        }
+        return removed;
+    }
+
+    @Override
+    public int size() {
+        return requests.size();
+    }
+
+    @Override
+    public Iterator<WaitingRequest> iterator() {
+        return Collections.unmodifiableCollection(requests.values()).iterator();
+    }
+
+    private void removeSequence(String action, Long sequence) {
+        ArrayDeque<Long> sequences = sequencesByAction.get(action);
+        // 按序移除时目标就在队首
+        if (sequences.peek().equals(sequence)) {
+            sequences.poll();
+        } else {
+            sequences.remove(sequence);
+        }
+        if (sequences.isEmpty()) {
+            sequencesByAction.remove(action);
+        }
+    }
+}
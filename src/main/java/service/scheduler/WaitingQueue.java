@@ -0,0 +1,49 @@
+package service.scheduler;
+
+import model.WaitingRequest;
+
+import java.util.function.Predicate;
+
+/**
+ * 等待队列
+ * 由 {@link PriorityScheduler} 创建，出队顺序由具体实现决定
+ */
+public interface WaitingQueue extends Iterable<WaitingRequest> {
+
+    /**
+     * 加入等待请求
+     */
+    void offer(WaitingRequest request);
+
+    /**
+     * 取出下一个获得锁的请求
+     *
+     * @param lastAction 上一个锁持有者的动作（无则为null）
+     * @return 下一个请求，队列为空时返回null
+     */
+    WaitingRequest poll(String lastAction);
+
+    /**
+     * 查看下一个获得锁的请求但不取出，与相同参数的 {@link #poll(String)} 返回同一请求
+     *
+     * @param lastAction 上一个锁持有者的动作（无则为null）
+     * @return 下一个请求，队列为空时返回null
+     */
+    WaitingRequest peek(String lastAction);
+
+    /**
+     * 移除满足条件的请求
+     *
+     * @return 是否有请求被移除
+     */
+    boolean removeIf(Predicate<? super WaitingRequest> filter);
+
+    /**
+     * 当前队列长度
+     */
+    int size();
+
+    default boolean isEmpty() {
+        return size() == 0;
+    }
+}
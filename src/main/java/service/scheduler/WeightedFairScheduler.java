@@ -0,0 +1,60 @@
+package service.scheduler;
+
+import model.WaitingRequest;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * 加权公平调度器
+ * 按操作者加权公平排队：每个请求的虚拟完成时间为
+ * max(队列虚拟时间, 该操作者上一个请求的虚拟完成时间) + 1/权重，
+ * 虚拟完成时间最小者先出队，权重越大的操作者获得的锁份额越多
+ */
+public class WeightedFairScheduler implements PriorityScheduler {
+
+    private final ToDoubleFunction<String> weightOfOperator;
+
+    /**
+     * @param weightOfOperator 操作者权重（必须为正数）
+     */
+    public WeightedFairScheduler(ToDoubleFunction<String> weightOfOperator) {
+        this.weightOfOperator = weightOfOperator;
+    }
+
+    @Override
+    public WaitingQueue newQueue() {
+        return new HeapWaitingQueue() {
+            private final Map<String, Double> lastFinishTimes = new HashMap<>();
+            private double virtualTime;
+
+            @Override
+            protected double keyOf(WaitingRequest request) {
+                double weight = weightOfOperator.applyAsDouble(request.getOperatorId());
+                double start = Math.max(virtualTime,
+                        lastFinishTimes.getOrDefault(request.getOperatorId(), 0.0));
+                double finish = start + 1.0 / (weight > 0 ? weight : 1.0);
+                lastFinishTimes.put(request.getOperatorId(), finish);
+                return finish;
+            }
+
+            @Override
+            protected void onPolled(WaitingRequest request, double key) {
+                virtualTime = key;
+                // 不晚于虚拟时间的记录与不存在等价，记录数明显多于队列长度时批量清理（均摊O(1)）
+                if (lastFinishTimes.getOrDefault(request.getOperatorId(), 0.0) <= virtualTime) {
+                    lastFinishTimes.remove(request.getOperatorId());
+                }
+                if (lastFinishTimes.size() > 2 * size() + 16) {
+                    lastFinishTimes.values().removeIf(finish -> finish <= virtualTime);
+                }
+            }
+        };
+    }
+
+    @Override
+    public String toString() {
+        return "WEIGHTED_FAIR";
+    }
+}
@@ -0,0 +1,253 @@
+package service.tenant;
+
+import model.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import service.ConflictControlService;
+import service.ObjectPolicy;
+import service.clock.Clock;
+import service.clock.CoarseClock;
+import service.impl.ConflictControlServiceImpl;
+import service.scheduler.PriorityScheduler;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 多租户冲突控制服务
+ * 每个租户拥有独立的状态分区、配置、优先策略和对象策略，并受各自的配额限制；
+ * 一个租户的突发流量只会触发它自己的限额，不影响其他租户
+ */
+public class MultiTenantConflictControlService {
+
+    private static final Logger logger = LoggerFactory.getLogger(MultiTenantConflictControlService.class);
+
+    private final ConcurrentHashMap<String, Tenant> tenants = new ConcurrentHashMap<>();
+
+    // 时间源（各租户的服务与限流器共用）
+    private final Clock clock;
+
+    /**
+     * 使用共享的粗粒度时钟
+     */
+    public MultiTenantConflictControlService() {
+        this(CoarseClock.shared());
+    }
+
+    /**
+     * @param clock 时间源（测试中可使用 {@link service.clock.VirtualClock} 推进时间）
+     */
+    public MultiTenantConflictControlService(Clock clock) {
+        this.clock = Objects.requireNonNull(clock);
+    }
+
+    /**
+     * 创建租户
+     *
+     * @return 绑定该租户的服务视图（操作受配额限制，配置只作用于该租户）
+     */
+    public ConflictControlService createTenant(String tenantId, TenantQuota quota) {
+        Tenant tenant = new Tenant(tenantId, clock);
+        if (tenants.putIfAbsent(tenantId, tenant) != null) {
+            throw new IllegalArgumentException("租户已存在: " + tenantId);
+        }
+        tenant.setQuota(quota);
+        logger.info("租户已创建: tenantId={}, quota={}", tenantId, quota);
+        return tenant;
+    }
+
+    /**
+     * 删除租户（其全部锁和等待请求一并丢弃）
+     */
+    public boolean removeTenant(String tenantId) {
+        boolean removed = tenants.remove(tenantId) != null;
+        if (removed) {
+            logger.info("租户已删除: tenantId={}", tenantId);
+        }
+        return removed;
+    }
+
+    /**
+     * 获取绑定租户的服务视图，租户不存在时返回null
+     */
+    public ConflictControlService tenant(String tenantId) {
+        return tenants.get(tenantId);
+    }
+
+    public void setQuota(String tenantId, TenantQuota quota) {
+        requireTenant(tenantId).setQuota(quota);
+        logger.info("租户配额已更新: tenantId={}, quota={}", tenantId, quota);
+    }
+
+    public OperationResult operate(String tenantId, String objectId, String action, String token, String operatorId) {
+        if (tenantId == null) {
+            return OperationResult.fail("参数不能为空");
+        }
+        Tenant tenant = tenants.get(tenantId);
+        if (tenant == null) {
+            return OperationResult.fail("租户不存在");
+        }
+        return tenant.operate(objectId, action, token, operatorId);
+    }
+
+    public TenantMetrics getMetrics(String tenantId) {
+        return requireTenant(tenantId).metrics();
+    }
+
+    public List<TenantMetrics> getAllMetrics() {
+        List<TenantMetrics> metrics = new ArrayList<>();
+        tenants.values().forEach(tenant -> metrics.add(tenant.metrics()));
+        return metrics;
+    }
+
+    private Tenant requireTenant(String tenantId) {
+        Tenant tenant = tenants.get(tenantId);
+        if (tenant == null) {
+            throw new IllegalArgumentException("租户不存在: " + tenantId);
+        }
+        return tenant;
+    }
+
+    /**
+     * 租户：独立的服务实例加配额检查
+     */
+    private static class Tenant implements ConflictControlService {
+
+        private final String tenantId;
+        private final Clock clock;
+        private final ConflictControlServiceImpl service;
+        private volatile TokenBucket rateLimiter;
+
+        private final LongAdder operations = new LongAdder();
+        private final LongAdder rateLimited = new LongAdder();
+        private final LongAdder objectLimited = new LongAdder();
+        private final LongAdder waiterLimited = new LongAdder();
+
+        Tenant(String tenantId, Clock clock) {
+            this.tenantId = tenantId;
+            this.clock = clock;
+            this.service = new ConflictControlServiceImpl(clock);
+        }
+
+        void setQuota(TenantQuota quota) {
+            service.setCapacityLimits(quota.getMaxObjects(), quota.getMaxWaiters());
+            rateLimiter = quota.getMaxOpsPerSecond() > 0 ? new TokenBucket(quota.getMaxOpsPerSecond(), clock) : null;
+        }
+
+        @Override
+        public OperationResult operate(String objectId, String action, String token, String operatorId) {
+            if (throttled()) {
+                return OperationResult.fail("操作频率超过租户限额");
+            }
+            OperationResult result = service.operate(objectId, action, token, operatorId);
+            if (!result.isAllowed()) {
+                if ("对象数量已达上限".equals(result.getReason())) {
+                    objectLimited.increment();
+                } else if ("等待者数量已达上限".equals(result.getReason())) {
+                    waiterLimited.increment();
+                }
+            }
+            return result;
+        }
+
+        @Override
+        public long readVersion(String objectId) {
+            if (throttled()) {
+                return -1;
+            }
+            return service.readVersion(objectId);
+        }
+
+        @Override
+        public OperationResult commit(String objectId, long expectedVersion, String operatorId) {
+            if (throttled()) {
+                return OperationResult.fail("操作频率超过租户限额");
+            }
+            return service.commit(objectId, expectedVersion, operatorId);
+        }
+
+        @Override
+        public OperationResult transfer(String objectId, String token, String operatorId, String targetOperatorId) {
+            if (throttled()) {
+                return OperationResult.fail("操作频率超过租户限额");
+            }
+            return service.transfer(objectId, token, operatorId, targetOperatorId);
+        }
+
+        @Override
+        public OperationResult upgrade(String objectId, String readToken, String action, String operatorId) {
+            if (throttled()) {
+                return OperationResult.fail("操作频率超过租户限额");
+            }
+            return service.upgrade(objectId, readToken, action, operatorId);
+        }
+
+        @Override
+        public OperationResult downgrade(String objectId, String token, String operatorId) {
+            if (throttled()) {
+                return OperationResult.fail("操作频率超过租户限额");
+            }
+            return service.downgrade(objectId, token, operatorId);
+        }
+
+        /**
+         * 计入一次操作并检查频率限额
+         *
+         * @return 超过限额时返回true
+         */
+        private boolean throttled() {
+            operations.increment();
+            TokenBucket limiter = rateLimiter;
+            if (limiter != null && !limiter.tryAcquire()) {
+                rateLimited.increment();
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public void setPriorityStrategy(PriorityStrategy strategy) {
+            service.setPriorityStrategy(strategy);
+        }
+
+        @Override
+        public void setPriorityScheduler(PriorityScheduler scheduler) {
+            service.setPriorityScheduler(scheduler);
+        }
+
+        @Override
+        public void setConfiguration(int maxQueueSize, long lockMaxHoldTime, long maxWaitTime) {
+            service.setConfiguration(maxQueueSize, lockMaxHoldTime, maxWaitTime);
+        }
+
+        @Override
+        public void setObjectPolicy(String objectIdPrefix, ObjectPolicy policy) {
+            service.setObjectPolicy(objectIdPrefix, policy);
+        }
+
+        @Override
+        public void removeObjectPolicy(String objectIdPrefix) {
+            service.removeObjectPolicy(objectIdPrefix);
+        }
+
+        TenantMetrics metrics() {
+            TenantMetrics metrics = new TenantMetrics();
+            metrics.setTenantId(tenantId);
+            metrics.setObjectCount(service.getObjectCount());
+            metrics.setWaiterCount(service.getWaiterCount());
+            metrics.setOperations(operations.sum());
+            metrics.setRateLimited(rateLimited.sum());
+            metrics.setObjectLimited(objectLimited.sum());
+            metrics.setWaiterLimited(waiterLimited.sum());
+            return metrics;
+        }
+
+        @Override
+        public String toString() {
+            return "Tenant(" + tenantId + ")";
+        }
+    }
+}
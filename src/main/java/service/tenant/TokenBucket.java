@@ -0,0 +1,34 @@
+package service.tenant;
+
+import service.clock.Clock;
+
+/**
+ * 令牌桶限流器，桶容量为一秒的令牌量
+ */
+class TokenBucket {
+
+    private final Clock clock;
+    private final double ratePerMilli;
+    private final double capacity;
+    private double tokens;
+    private long lastRefillMillis;
+
+    TokenBucket(double permitsPerSecond, Clock clock) {
+        this.clock = clock;
+        this.ratePerMilli = permitsPerSecond / 1000;
+        this.capacity = Math.max(1, permitsPerSecond);
+        this.tokens = capacity;
+        this.lastRefillMillis = clock.millis();
+    }
+
+    synchronized boolean tryAcquire() {
+        long now = clock.millis();
+        tokens = Math.min(capacity, tokens + (now - lastRefillMillis) * ratePerMilli);
+        lastRefillMillis = now;
+        if (tokens >= 1) {
+            tokens -= 1;
+            return true;
+        }
+        return false;
+    }
+}
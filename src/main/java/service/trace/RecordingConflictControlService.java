@@ -0,0 +1,229 @@
+package service.trace;
+
+import model.OperationResult;
+import model.PriorityStrategy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import service.ConflictControlService;
+import service.ObjectPolicy;
+import service.scheduler.PriorityScheduler;
+import service.scheduler.PrioritySchedulers;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 记录操作轨迹的服务装饰器
+ * 调用线程只构造事件并放入有界队列，编码与写盘由后台线程完成；
+ * 队列已满时丢弃事件并计数，不阻塞业务调用
+ */
+public class RecordingConflictControlService implements ConflictControlService, Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(RecordingConflictControlService.class);
+
+    private final ConflictControlService delegate;
+    private final TraceWriter writer;
+    private final BlockingQueue<TraceEvent> events;
+    private final Thread writerThread;
+    private final long startNanos = System.nanoTime();
+    private final AtomicLong droppedEvents = new AtomicLong();
+    private volatile boolean closed;
+
+    public RecordingConflictControlService(ConflictControlService delegate, OutputStream output) throws IOException {
+        this(delegate, output, 65536);
+    }
+
+    /**
+     * @param delegate 被记录的服务
+     * @param output 轨迹输出流（关闭时一并关闭）
+     * @param bufferSize 事件缓冲队列容量
+     */
+    public RecordingConflictControlService(ConflictControlService delegate, OutputStream output,
+                                           int bufferSize) throws IOException {
+        this.delegate = delegate;
+        this.writer = new TraceWriter(output);
+        this.events = new ArrayBlockingQueue<>(bufferSize);
+        this.writerThread = new Thread(this::writeLoop, "trace-writer");
+        this.writerThread.setDaemon(true);
+        this.writerThread.start();
+    }
+
+    @Override
+    public OperationResult operate(String objectId, String action, String token, String operatorId) {
+        // 时间戳取请求到达时刻而非完成时刻
+        TraceEvent event = newEvent(TraceEvent.Type.OPERATE);
+        OperationResult result = delegate.operate(objectId, action, token, operatorId);
+        event.setObjectId(objectId);
+        event.setAction(action);
+        event.setToken(token);
+        event.setOperatorId(operatorId);
+        event.setResult(result);
+        record(event);
+        return result;
+    }
+
+    @Override
+    public void setPriorityStrategy(PriorityStrategy strategy) {
+        setPriorityScheduler(PrioritySchedulers.of(strategy));
+    }
+
+    @Override
+    public void setPriorityScheduler(PriorityScheduler scheduler) {
+        TraceEvent event = newEvent(TraceEvent.Type.SET_PRIORITY_STRATEGY);
+        delegate.setPriorityScheduler(scheduler);
+        event.setPriorityStrategy(String.valueOf(scheduler));
+        record(event);
+    }
+
+    @Override
+    public void setConfiguration(int maxQueueSize, long lockMaxHoldTime, long maxWaitTime) {
+        TraceEvent event = newEvent(TraceEvent.Type.SET_CONFIGURATION);
+        delegate.setConfiguration(maxQueueSize, lockMaxHoldTime, maxWaitTime);
+        event.setMaxQueueSize(maxQueueSize);
+        event.setLockMaxHoldTime(lockMaxHoldTime);
+        event.setMaxWaitTime(maxWaitTime);
+        record(event);
+    }
+
+    @Override
+    public void setObjectPolicy(String objectIdPrefix, ObjectPolicy policy) {
+        TraceEvent event = newEvent(TraceEvent.Type.SET_OBJECT_POLICY);
+        delegate.setObjectPolicy(objectIdPrefix, policy);
+        event.setObjectId(objectIdPrefix);
+        event.setLockMaxHoldTime(policy.getLockMaxHoldTime());
+        event.setMaxClaimTime(policy.getMaxClaimTime());
+        event.setMaxQueueSize(policy.getMaxQueueSize());
+        event.setPriorityStrategy(policy.getPriorityScheduler() == null ? null
+                : String.valueOf(policy.getPriorityScheduler()));
+        record(event);
+    }
+
+    @Override
+    public void removeObjectPolicy(String objectIdPrefix) {
+        TraceEvent event = newEvent(TraceEvent.Type.REMOVE_OBJECT_POLICY);
+        delegate.removeObjectPolicy(objectIdPrefix);
+        event.setObjectId(objectIdPrefix);
+        record(event);
+    }
+
+    @Override
+    public long readVersion(String objectId) {
+        TraceEvent event = newEvent(TraceEvent.Type.READ_VERSION);
+        long version = delegate.readVersion(objectId);
+        event.setObjectId(objectId);
+        event.setVersion(version);
+        record(event);
+        return version;
+    }
+
+    @Override
+    public OperationResult commit(String objectId, long expectedVersion, String operatorId) {
+        TraceEvent event = newEvent(TraceEvent.Type.COMMIT);
+        OperationResult result = delegate.commit(objectId, expectedVersion, operatorId);
+        event.setObjectId(objectId);
+        event.setVersion(expectedVersion);
+        event.setOperatorId(operatorId);
+        event.setResult(result);
+        record(event);
+        return result;
+    }
+
+    @Override
+    public OperationResult transfer(String objectId, String token, String operatorId, String targetOperatorId) {
+        TraceEvent event = newEvent(TraceEvent.Type.TRANSFER);
+        OperationResult result = delegate.transfer(objectId, token, operatorId, targetOperatorId);
+        event.setObjectId(objectId);
+        event.setToken(token);
+        event.setOperatorId(operatorId);
+        event.setTargetOperatorId(targetOperatorId);
+        event.setResult(result);
+        record(event);
+        return result;
+    }
+
+    @Override
+    public OperationResult upgrade(String objectId, String readToken, String action, String operatorId) {
+        TraceEvent event = newEvent(TraceEvent.Type.UPGRADE);
+        OperationResult result = delegate.upgrade(objectId, readToken, action, operatorId);
+        event.setObjectId(objectId);
+        event.setToken(readToken);
+        event.setAction(action);
+        event.setOperatorId(operatorId);
+        event.setResult(result);
+        record(event);
+        return result;
+    }
+
+    @Override
+    public OperationResult downgrade(String objectId, String token, String operatorId) {
+        TraceEvent event = newEvent(TraceEvent.Type.DOWNGRADE);
+        OperationResult result = delegate.downgrade(objectId, token, operatorId);
+        event.setObjectId(objectId);
+        event.setToken(token);
+        event.setOperatorId(operatorId);
+        event.setResult(result);
+        record(event);
+        return result;
+    }
+
+    /**
+     * 因缓冲队列已满而丢弃的事件数
+     */
+    public long getDroppedEvents() {
+        return droppedEvents.get();
+    }
+
+    /**
+     * 停止记录，写完缓冲中的事件后关闭输出
+     */
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        try {
+            writerThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        writer.close();
+        if (droppedEvents.get() > 0) {
+            logger.warn("轨迹记录丢弃事件数: {}", droppedEvents.get());
+        }
+    }
+
+    private TraceEvent newEvent(TraceEvent.Type type) {
+        TraceEvent event = new TraceEvent();
+        event.setType(type);
+        event.setTimestamp(System.nanoTime() - startNanos);
+        return event;
+    }
+
+    private void record(TraceEvent event) {
+        if (closed || !events.offer(event)) {
+            droppedEvents.incrementAndGet();
+        }
+    }
+
+    private void writeLoop() {
+        try {
+            while (!closed || !events.isEmpty()) {
+                TraceEvent event = events.poll(100, TimeUnit.MILLISECONDS);
+                if (event == null) {
+                    writer.flush();
+                    continue;
+                }
+                writer.write(event);
+            }
+            writer.flush();
+        } catch (IOException e) {
+            logger.error("轨迹写入失败，停止记录", e);
+            closed = true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package service.trace;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 轨迹回放报告
+ */
+@Data
+public class ReplayReport {
+    private long operations;               // 回放的操作数
+    private long configurationChanges;     // 回放的配置变更数
+    private long skippedEvents;            // 无法回放而跳过的事件数
+    private long elapsedNanos;             // 回放总耗时
+    private double throughput;             // 吞吐(ops/s)
+    private long p50Nanos;                 // 操作延迟百分位
+    private long p90Nanos;
+    private long p99Nanos;
+    private long p999Nanos;
+    private long maxNanos;
+    private long mismatches;               // 结果与记录不一致的操作数
+    private List<String> mismatchSamples = new ArrayList<>(); // 不一致样例（最多保留若干条）
+
+    @Override
+    public String toString() {
+        return String.format("operations=%d, configChanges=%d, skipped=%d, elapsed=%.1fms, throughput=%.0f ops/s, "
+                        + "latency(us) p50=%.1f p90=%.1f p99=%.1f p99.9=%.1f max=%.1f, mismatches=%d",
+                operations, configurationChanges, skippedEvents, elapsedNanos / 1e6, throughput,
+                p50Nanos / 1e3, p90Nanos / 1e3, p99Nanos / 1e3, p999Nanos / 1e3, maxNanos / 1e3, mismatches);
+    }
+}
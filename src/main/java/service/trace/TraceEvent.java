@@ -0,0 +1,46 @@
+package service.trace;
+
+import lombok.Data;
+import model.OperationResult;
+
+/**
+ * 操作轨迹事件
+ */
+@Data
+public class TraceEvent {
+
+    /**
+     * 事件类型
+     */
+    public enum Type {
+        OPERATE,
+        SET_CONFIGURATION,
+        SET_PRIORITY_STRATEGY,
+        SET_OBJECT_POLICY,
+        REMOVE_OBJECT_POLICY,
+        TRANSFER,
+        UPGRADE,
+        DOWNGRADE,
+        READ_VERSION,
+        COMMIT
+    }
+
+    private Type type;
+    private long timestamp;            // 相对于记录开始的时间(ns)
+
+    // OPERATE及锁转交、升降级、乐观模式调用的参数；SET_OBJECT_POLICY/REMOVE_OBJECT_POLICY使用objectId保存前缀
+    private String objectId;
+    private String action;
+    private String token;
+    private String operatorId;
+    private String targetOperatorId;   // TRANSFER的接收者
+    private Long version;              // READ_VERSION的返回值，COMMIT的预期版本
+    private OperationResult result;    // 记录时的操作结果（READ_VERSION为null）
+
+    // 配置参数（按事件类型使用，null表示未设置）
+    private Integer maxQueueSize;
+    private Long lockMaxHoldTime;
+    private Long maxClaimTime;
+    private Long maxWaitTime;
+    private String priorityStrategy;   // PriorityStrategy枚举名，自定义调度器为其描述
+}
@@ -0,0 +1,177 @@
+package service.trace;
+
+import model.OperationResult;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 轨迹文件读取器，格式见 {@link TraceWriter}
+ */
+public class TraceReader implements Closeable {
+
+    private final DataInputStream in;
+    private final List<String> dictionary = new ArrayList<>();
+    private long lastTimestamp;
+
+    public TraceReader(InputStream inputStream) throws IOException {
+        this.in = new DataInputStream(new BufferedInputStream(inputStream, 64 * 1024));
+        if (in.readInt() != TraceWriter.MAGIC) {
+            throw new IOException("不是有效的轨迹文件");
+        }
+        int version = in.readUnsignedByte();
+        if (version != TraceWriter.VERSION) {
+            throw new IOException("不支持的轨迹文件版本: " + version);
+        }
+    }
+
+    /**
+     * 读取下一个事件
+     *
+     * @return 事件，文件结束时返回null
+     */
+    public TraceEvent read() throws IOException {
+        int typeOrdinal = in.read();
+        if (typeOrdinal < 0) {
+            return null;
+        }
+        TraceEvent event = new TraceEvent();
+        event.setType(TraceEvent.Type.values()[typeOrdinal]);
+        lastTimestamp += readZigzag();
+        event.setTimestamp(lastTimestamp);
+
+        switch (event.getType()) {
+            case OPERATE:
+                event.setObjectId(readString());
+                event.setAction(readString());
+                event.setToken(readToken());
+                event.setOperatorId(readString());
+                event.setResult(readResult());
+                break;
+            case TRANSFER:
+                event.setObjectId(readString());
+                event.setToken(readToken());
+                event.setOperatorId(readString());
+                event.setTargetOperatorId(readString());
+                event.setResult(readResult());
+                break;
+            case UPGRADE:
+                event.setObjectId(readString());
+                event.setToken(readToken());
+                event.setAction(readString());
+                event.setOperatorId(readString());
+                event.setResult(readResult());
+                break;
+            case DOWNGRADE:
+                event.setObjectId(readString());
+                event.setToken(readToken());
+                event.setOperatorId(readString());
+                event.setResult(readResult());
+                break;
+            case READ_VERSION:
+                event.setObjectId(readString());
+                event.setVersion(readZigzag());
+                break;
+            case COMMIT:
+                event.setObjectId(readString());
+                event.setVersion(readZigzag());
+                event.setOperatorId(readString());
+                event.setResult(readResult());
+                break;
+            case SET_CONFIGURATION:
+                event.setMaxQueueSize((int) readVarLong());
+                event.setLockMaxHoldTime(readVarLong());
+                event.setMaxWaitTime(readVarLong());
+                break;
+            case SET_PRIORITY_STRATEGY:
+                event.setPriorityStrategy(readString());
+                break;
+            case SET_OBJECT_POLICY:
+                event.setObjectId(readString());
+                event.setLockMaxHoldTime(readNullable());
+                event.setMaxClaimTime(readNullable());
+                Long maxQueueSize = readNullable();
+                event.setMaxQueueSize(maxQueueSize == null ? null : maxQueueSize.intValue());
+                event.setPriorityStrategy(readString());
+                break;
+            case REMOVE_OBJECT_POLICY:
+                event.setObjectId(readString());
+                break;
+            default:
+                throw new IOException("未知事件类型: " + typeOrdinal);
+        }
+        return event;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    private String readString() throws IOException {
+        int id = (int) readVarLong();
+        if (id == 0) {
+            return null;
+        }
+        if (id <= dictionary.size()) {
+            return dictionary.get(id - 1);
+        }
+        String value = in.readUTF();
+        dictionary.add(value);
+        return value;
+    }
+
+    private String readToken() throws IOException {
+        int kind = in.readUnsignedByte();
+        switch (kind) {
+            case TraceWriter.TOKEN_NULL:
+                return null;
+            case TraceWriter.TOKEN_LOCK:
+                long value = in.readLong();
+                char[] chars = new char[TraceWriter.LOCK_TOKEN_LENGTH];
+                for (int i = chars.length - 1; i >= 0; i--) {
+                    chars[i] = TraceWriter.LOCK_TOKEN_CHARS.charAt((int) (value % 36));
+                    value /= 36;
+                }
+                return new String(chars);
+            case TraceWriter.TOKEN_READ:
+                return TraceWriter.READ_TOKEN_PREFIX + String.format("%08x", in.readInt());
+            case TraceWriter.TOKEN_RAW:
+                return in.readUTF();
+            default:
+                throw new IOException("未知Token格式: " + kind);
+        }
+    }
+
+    private OperationResult readResult() throws IOException {
+        boolean allowed = in.readBoolean();
+        String token = readToken();
+        String reason = readString();
+        long position = readVarLong();
+        return new OperationResult(allowed, token, reason, position == 0 ? null : (int) (position - 1));
+    }
+
+    private long readZigzag() throws IOException {
+        long zigzag = readVarLong();
+        return (zigzag >>> 1) ^ -(zigzag & 1);
+    }
+
+    private Long readNullable() throws IOException {
+        long value = readVarLong();
+        return value == 0 ? null : value - 1;
+    }
+
+    private long readVarLong() throws IOException {
+        long value = 0;
+        int shift = 0;
+        while (true) {
+            int b = in.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+            shift += 7;
+        }
+    }
+}
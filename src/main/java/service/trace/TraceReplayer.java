@@ -0,0 +1,228 @@
+package service.trace;
+
+import model.OperationResult;
+import model.PriorityStrategy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import service.ConflictControlService;
+import service.ObjectPolicy;
+import service.scheduler.PrioritySchedulers;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 轨迹回放器
+ * 按记录顺序在单线程中回放轨迹，支持原速、加速或不限速回放；
+ * 记录中的Token和乐观模式版本号会映射为回放时服务分配的值，结果与记录不一致时计入差异
+ */
+public class TraceReplayer {
+
+    private static final Logger logger = LoggerFactory.getLogger(TraceReplayer.class);
+
+    /**
+     * 不限速回放
+     */
+    public static final double AS_FAST_AS_POSSIBLE = 0;
+
+    private static final int MAX_MISMATCH_SAMPLES = 20;
+
+    // 计入操作数与延迟的服务调用，其余事件为配置变更
+    private static final EnumSet<TraceEvent.Type> CALLS = EnumSet.of(TraceEvent.Type.OPERATE,
+            TraceEvent.Type.TRANSFER, TraceEvent.Type.UPGRADE, TraceEvent.Type.DOWNGRADE,
+            TraceEvent.Type.READ_VERSION, TraceEvent.Type.COMMIT);
+
+    private final ConflictControlService service;
+    private final double speed;
+
+    /**
+     * @param service 回放目标
+     * @param speed 回放速度倍率（1为原速，{@link #AS_FAST_AS_POSSIBLE}为不限速）
+     */
+    public TraceReplayer(ConflictControlService service, double speed) {
+        this.service = service;
+        this.speed = speed;
+    }
+
+    public ReplayReport replay(TraceReader reader) throws IOException {
+        ReplayReport report = new ReplayReport();
+        Map<String, String> tokenMapping = new HashMap<>();
+        // objectId -> 记录的版本号 -> 回放时读到的版本号
+        Map<String, Map<Long, Long>> versionMapping = new HashMap<>();
+        long[] latencies = new long[1024];
+        int count = 0;
+
+        long start = System.nanoTime();
+        Long firstTimestamp = null;
+        TraceEvent event;
+        while ((event = reader.read()) != null) {
+            if (firstTimestamp == null) {
+                firstTimestamp = event.getTimestamp();
+            }
+            if (speed > 0) {
+                long due = start + (long) ((event.getTimestamp() - firstTimestamp) / speed);
+                long delay;
+                while ((delay = due - System.nanoTime()) > 0) {
+                    LockSupport.parkNanos(delay);
+                }
+            }
+
+            if (!CALLS.contains(event.getType())) {
+                if (applyConfiguration(event)) {
+                    report.setConfigurationChanges(report.getConfigurationChanges() + 1);
+                } else {
+                    report.setSkippedEvents(report.getSkippedEvents() + 1);
+                }
+                continue;
+            }
+
+            String token = event.getToken() == null ? null
+                    : tokenMapping.getOrDefault(event.getToken(), event.getToken());
+            OperationResult actual = null;
+            long actualVersion = 0;
+            long begin = System.nanoTime();
+            switch (event.getType()) {
+                case TRANSFER:
+                    actual = service.transfer(event.getObjectId(), token, event.getOperatorId(),
+                            event.getTargetOperatorId());
+                    break;
+                case UPGRADE:
+                    actual = service.upgrade(event.getObjectId(), token, event.getAction(), event.getOperatorId());
+                    break;
+                case DOWNGRADE:
+                    actual = service.downgrade(event.getObjectId(), token, event.getOperatorId());
+                    break;
+                case READ_VERSION:
+                    actualVersion = service.readVersion(event.getObjectId());
+                    break;
+                case COMMIT:
+                    Map<Long, Long> versions = versionMapping.get(event.getObjectId());
+                    long expectedVersion = versions == null ? event.getVersion()
+                            : versions.getOrDefault(event.getVersion(), event.getVersion());
+                    actual = service.commit(event.getObjectId(), expectedVersion, event.getOperatorId());
+                    break;
+                default:
+                    actual = service.operate(event.getObjectId(), event.getAction(), token, event.getOperatorId());
+                    break;
+            }
+            long latency = System.nanoTime() - begin;
+
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = latency;
+
+            if (event.getType() == TraceEvent.Type.READ_VERSION) {
+                // 版本号只比较是否可用，可用时记下映射供后续commit使用
+                if (event.getVersion() >= 0 && actualVersion >= 0) {
+                    versionMapping.computeIfAbsent(event.getObjectId(), k -> new HashMap<>())
+                            .put(event.getVersion(), actualVersion);
+                }
+                if ((event.getVersion() < 0) != (actualVersion < 0)) {
+                    recordMismatch(report, event, "version " + event.getVersion(), "version " + actualVersion);
+                }
+                continue;
+            }
+
+            OperationResult expected = event.getResult();
+            if (expected.getToken() != null && actual.getToken() != null) {
+                tokenMapping.put(expected.getToken(), actual.getToken());
+            }
+            if (!sameOutcome(expected, actual)) {
+                recordMismatch(report, event, describe(expected), describe(actual));
+            }
+        }
+
+        long elapsed = System.nanoTime() - start;
+        report.setOperations(count);
+        report.setElapsedNanos(elapsed);
+        report.setThroughput(elapsed > 0 ? count * 1e9 / elapsed : 0);
+        if (count > 0) {
+            long[] sorted = Arrays.copyOf(latencies, count);
+            Arrays.sort(sorted);
+            report.setP50Nanos(percentile(sorted, 0.50));
+            report.setP90Nanos(percentile(sorted, 0.90));
+            report.setP99Nanos(percentile(sorted, 0.99));
+            report.setP999Nanos(percentile(sorted, 0.999));
+            report.setMaxNanos(sorted[count - 1]);
+        }
+        return report;
+    }
+
+    private static void recordMismatch(ReplayReport report, TraceEvent event, String expected, String actual) {
+        report.setMismatches(report.getMismatches() + 1);
+        if (report.getMismatchSamples().size() < MAX_MISMATCH_SAMPLES) {
+            // OPERATE以动作标识调用，其他调用以事件类型标识
+            String call = event.getType() == TraceEvent.Type.OPERATE ? event.getAction() : event.getType().name();
+            report.getMismatchSamples().add(String.format("%s %s/%s by %s: expected %s, actual %s",
+                    event.getTimestamp(), event.getObjectId(), call, event.getOperatorId(), expected, actual));
+        }
+    }
+
+    private boolean applyConfiguration(TraceEvent event) {
+        switch (event.getType()) {
+            case SET_CONFIGURATION:
+                service.setConfiguration(event.getMaxQueueSize(), event.getLockMaxHoldTime(), event.getMaxWaitTime());
+                return true;
+            case SET_PRIORITY_STRATEGY:
+                PriorityStrategy strategy = toStrategy(event.getPriorityStrategy());
+                if (strategy == null) {
+                    logger.warn("无法回放自定义调度器，已跳过: {}", event.getPriorityStrategy());
+                    return false;
+                }
+                service.setPriorityStrategy(strategy);
+                return true;
+            case SET_OBJECT_POLICY:
+                PriorityStrategy policyStrategy = toStrategy(event.getPriorityStrategy());
+                if (event.getPriorityStrategy() != null && policyStrategy == null) {
+                    logger.warn("对象策略使用自定义调度器，回放时沿用全局调度器: {}", event.getPriorityStrategy());
+                }
+                service.setObjectPolicy(event.getObjectId(), new ObjectPolicy(event.getLockMaxHoldTime(),
+                        event.getMaxClaimTime(), event.getMaxQueueSize(),
+                        policyStrategy != null ? PrioritySchedulers.of(policyStrategy) : null));
+                return true;
+            case REMOVE_OBJECT_POLICY:
+                service.removeObjectPolicy(event.getObjectId());
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private static PriorityStrategy toStrategy(String name) {
+        if (name == null) {
+            return null;
+        }
+        for (PriorityStrategy strategy : PriorityStrategy.values()) {
+            if (strategy.name().equals(name)) {
+                return strategy;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 比较结果是否一致（Token本身每次随机生成，只比较是否分配）
+     */
+    private static boolean sameOutcome(OperationResult expected, OperationResult actual) {
+        return expected.isAllowed() == actual.isAllowed()
+                && (expected.getToken() == null) == (actual.getToken() == null)
+                && Objects.equals(expected.getReason(), actual.getReason())
+                && Objects.equals(expected.getWaitPosition(), actual.getWaitPosition());
+    }
+
+    private static String describe(OperationResult result) {
+        return result.isAllowed() ? "allowed" : result.getReason()
+                + (result.getWaitPosition() != null ? "@" + result.getWaitPosition() : "");
+    }
+
+    private static long percentile(long[] sorted, double p) {
+        int index = (int) Math.ceil(p * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+    }
+}
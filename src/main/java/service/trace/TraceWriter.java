@@ -0,0 +1,208 @@
+package service.trace;
+
+import model.OperationResult;
+
+import java.io.*;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 轨迹文件写入器（紧凑二进制格式）
+ *
+ * 文件格式：魔数"CCTR" + 版本号，随后为连续的事件记录：
+ * 类型(1字节) + 时间增量(zigzag变长整数，ns) + 按类型排列的字段。
+ * objectId、operatorId、动作等取值有限的字符串按出现顺序编入字典：0表示null，已出现的字符串只写编号，
+ * 首次出现时写入新编号后紧跟UTF内容。Token每次都不同，不进入字典，按格式直接写值：
+ * 写锁Token写为8字节数值，读Token写为4字节数值，其他字符串写UTF内容。非线程安全
+ */
+public class TraceWriter implements Closeable {
+
+    static final int MAGIC = 0x43435452; // "CCTR"
+    static final int VERSION = 3;
+
+    // Token的写入形式
+    static final int TOKEN_NULL = 0;
+    static final int TOKEN_LOCK = 1;      // 10位A-Z0-9，按36进制写为8字节
+    static final int TOKEN_READ = 2;      // "READ_" + 8位小写十六进制，写为4字节
+    static final int TOKEN_RAW = 3;       // 其他字符串，写UTF内容
+
+    static final String LOCK_TOKEN_CHARS = "ABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789";
+    static final int LOCK_TOKEN_LENGTH = 10;
+    static final String READ_TOKEN_PREFIX = "READ_";
+
+    private final DataOutputStream out;
+    private final Map<String, Integer> dictionary = new HashMap<>();
+    private long lastTimestamp;
+
+    public TraceWriter(OutputStream outputStream) throws IOException {
+        this.out = new DataOutputStream(new BufferedOutputStream(outputStream, 64 * 1024));
+        out.writeInt(MAGIC);
+        out.writeByte(VERSION);
+    }
+
+    public void write(TraceEvent event) throws IOException {
+        out.writeByte(event.getType().ordinal());
+        // 并发记录时事件可能轻微乱序，时间增量用zigzag编码
+        writeZigzag(event.getTimestamp() - lastTimestamp);
+        lastTimestamp = event.getTimestamp();
+
+        switch (event.getType()) {
+            case OPERATE:
+                writeString(event.getObjectId());
+                writeString(event.getAction());
+                writeToken(event.getToken());
+                writeString(event.getOperatorId());
+                writeResult(event.getResult());
+                break;
+            case TRANSFER:
+                writeString(event.getObjectId());
+                writeToken(event.getToken());
+                writeString(event.getOperatorId());
+                writeString(event.getTargetOperatorId());
+                writeResult(event.getResult());
+                break;
+            case UPGRADE:
+                writeString(event.getObjectId());
+                writeToken(event.getToken());
+                writeString(event.getAction());
+                writeString(event.getOperatorId());
+                writeResult(event.getResult());
+                break;
+            case DOWNGRADE:
+                writeString(event.getObjectId());
+                writeToken(event.getToken());
+                writeString(event.getOperatorId());
+                writeResult(event.getResult());
+                break;
+            case READ_VERSION:
+                writeString(event.getObjectId());
+                writeZigzag(event.getVersion());
+                break;
+            case COMMIT:
+                writeString(event.getObjectId());
+                writeZigzag(event.getVersion());
+                writeString(event.getOperatorId());
+                writeResult(event.getResult());
+                break;
+            case SET_CONFIGURATION:
+                writeVarLong(event.getMaxQueueSize());
+                writeVarLong(event.getLockMaxHoldTime());
+                writeVarLong(event.getMaxWaitTime());
+                break;
+            case SET_PRIORITY_STRATEGY:
+                writeString(event.getPriorityStrategy());
+                break;
+            case SET_OBJECT_POLICY:
+                writeString(event.getObjectId());
+                writeNullable(event.getLockMaxHoldTime());
+                writeNullable(event.getMaxClaimTime());
+                writeNullable(event.getMaxQueueSize() == null ? null : event.getMaxQueueSize().longValue());
+                writeString(event.getPriorityStrategy());
+                break;
+            case REMOVE_OBJECT_POLICY:
+                writeString(event.getObjectId());
+                break;
+            default:
+                throw new IllegalArgumentException("未知事件类型: " + event.getType());
+        }
+    }
+
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+
+    private void writeString(String value) throws IOException {
+        if (value == null) {
+            writeVarLong(0);
+            return;
+        }
+        Integer id = dictionary.get(value);
+        if (id != null) {
+            writeVarLong(id);
+            return;
+        }
+        id = dictionary.size() + 1;
+        dictionary.put(value, id);
+        writeVarLong(id);
+        out.writeUTF(value);
+    }
+
+    private void writeToken(String token) throws IOException {
+        if (token == null) {
+            out.writeByte(TOKEN_NULL);
+            return;
+        }
+        long lockToken = parseLockToken(token);
+        if (lockToken >= 0) {
+            out.writeByte(TOKEN_LOCK);
+            out.writeLong(lockToken);
+            return;
+        }
+        if (isReadToken(token)) {
+            out.writeByte(TOKEN_READ);
+            out.writeInt(Integer.parseUnsignedInt(token.substring(READ_TOKEN_PREFIX.length()), 16));
+            return;
+        }
+        out.writeByte(TOKEN_RAW);
+        out.writeUTF(token);
+    }
+
+    /**
+     * @return 写锁Token的数值，格式不符时返回-1
+     */
+    private static long parseLockToken(String token) {
+        if (token.length() != LOCK_TOKEN_LENGTH) {
+            return -1;
+        }
+        long value = 0;
+        for (int i = 0; i < LOCK_TOKEN_LENGTH; i++) {
+            int digit = LOCK_TOKEN_CHARS.indexOf(token.charAt(i));
+            if (digit < 0) {
+                return -1;
+            }
+            value = value * 36 + digit;
+        }
+        return value;
+    }
+
+    private static boolean isReadToken(String token) {
+        if (token.length() != READ_TOKEN_PREFIX.length() + 8 || !token.startsWith(READ_TOKEN_PREFIX)) {
+            return false;
+        }
+        for (int i = READ_TOKEN_PREFIX.length(); i < token.length(); i++) {
+            char c = token.charAt(i);
+            if ((c < '0' || c > '9') && (c < 'a' || c > 'f')) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void writeResult(OperationResult result) throws IOException {
+        out.writeBoolean(result.isAllowed());
+        writeToken(result.getToken());
+        writeString(result.getReason());
+        writeVarLong(result.getWaitPosition() == null ? 0 : result.getWaitPosition() + 1L);
+    }
+
+    private void writeZigzag(long value) throws IOException {
+        writeVarLong((value << 1) ^ (value >> 63));
+    }
+
+    private void writeNullable(Long value) throws IOException {
+        writeVarLong(value == null ? 0 : value + 1);
+    }
+
+    private void writeVarLong(long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+}
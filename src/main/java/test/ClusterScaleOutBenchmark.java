@@ -0,0 +1,95 @@
+package test;
+
+import ch.qos.logback.classic.Level;
+import org.slf4j.LoggerFactory;
+import service.cluster.ClusteredConflictControlService;
+import service.impl.ConflictControlServiceImpl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 集群扩展基准测试
+ * 分别以1/2/4/8个节点运行相同的加锁-刷新-释放负载，测量吞吐量；
+ * 随后在持有大量锁的情况下加入一个节点，测量迁移耗时
+ *
+ * 用法: ClusterScaleOutBenchmark [线程数，默认8] [每轮秒数，默认3] [对象数量，默认100000]
+ */
+public class ClusterScaleOutBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : 8;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+        int objects = args.length > 2 ? Integer.parseInt(args[2]) : 100_000;
+        ((ch.qos.logback.classic.Logger) LoggerFactory.getLogger(ConflictControlServiceImpl.class)).setLevel(Level.ERROR);
+        ((ch.qos.logback.classic.Logger) LoggerFactory.getLogger(ClusteredConflictControlService.class)).setLevel(Level.ERROR);
+
+        System.out.printf("%-8s %14s%n", "nodes", "ops/s");
+        for (int nodes = 1; nodes <= 8; nodes *= 2) {
+            ClusteredConflictControlService cluster = newCluster(nodes);
+            System.out.printf("%-8d %14.0f%n", nodes, throughput(cluster, threads, seconds, objects));
+        }
+
+        // 迁移耗时：节点加入时约1/(n+1)的对象迁移到新节点
+        System.out.printf("%n%-8s %12s %12s %12s%n", "nodes", "locked", "migrated", "millis");
+        for (int nodes = 1; nodes <= 4; nodes *= 2) {
+            ClusteredConflictControlService cluster = newCluster(nodes);
+            for (int i = 0; i < objects; i++) {
+                cluster.operate("document-" + i, "edit", null, "user" + i);
+            }
+            long start = System.nanoTime();
+            String nodeId = "node-" + nodes;
+            cluster.addNode(nodeId);
+            long millis = (System.nanoTime() - start) / 1_000_000;
+            long migrated = cluster.getNodes().stream()
+                    .filter(node -> node.getNodeId().equals(nodeId))
+                    .mapToLong(node -> node.getLocalService().exportObjects(id -> true, false).size())
+                    .sum();
+            System.out.printf("%d->%-5d %12d %12d %12d%n", nodes, nodes + 1, objects, migrated, millis);
+        }
+    }
+
+    private static ClusteredConflictControlService newCluster(int nodes) {
+        ClusteredConflictControlService cluster = new ClusteredConflictControlService();
+        for (int i = 0; i < nodes; i++) {
+            cluster.addNode("node-" + i);
+        }
+        return cluster;
+    }
+
+    private static double throughput(ClusteredConflictControlService cluster, int threads, int seconds, int objects)
+            throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+        List<Future<Long>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            String operatorId = "user" + t;
+            futures.add(executor.submit(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                long operations = 0;
+                while (System.nanoTime() < deadline) {
+                    String objectId = "document-" + random.nextInt(objects);
+                    String token = cluster.operate(objectId, "edit", null, operatorId).getToken();
+                    if (token != null) {
+                        cluster.operate(objectId, "save", token, operatorId);
+                        cluster.operate(objectId, "exit", token, operatorId);
+                        operations += 3;
+                    } else {
+                        operations++;
+                    }
+                }
+                return operations;
+            }));
+        }
+        long total = 0;
+        for (Future<Long> future : futures) {
+            total += future.get();
+        }
+        executor.shutdown();
+        return total / (double) seconds;
+    }
+}
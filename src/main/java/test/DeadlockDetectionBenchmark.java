@@ -0,0 +1,59 @@
+package test;
+
+import ch.qos.logback.classic.Level;
+import model.DeadlockVictimPolicy;
+import org.slf4j.LoggerFactory;
+import service.impl.ConflictControlServiceImpl;
+
+/**
+ * 死锁检测基准测试
+ * 构造长度为L的等待链（操作者i持有对象i并等待对象i+1），按从链尾到链头的顺序排队，
+ * 使每次排队的检测都遍历链上剩余部分；比较关闭与启用检测时每次排队的平均耗时
+ *
+ * 用法: DeadlockDetectionBenchmark [轮数，默认200]
+ */
+public class DeadlockDetectionBenchmark {
+
+    public static void main(String[] args) {
+        int rounds = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        ((ch.qos.logback.classic.Logger) LoggerFactory.getLogger(ConflictControlServiceImpl.class)).setLevel(Level.ERROR);
+
+        System.out.printf("%-8s %16s %16s %16s%n", "chain", "off(ns/enqueue)", "on(ns/enqueue)", "deadlocks");
+        for (int length : new int[]{2, 8, 64, 512}) {
+            // 预热
+            run(length, rounds / 10 + 1, false);
+            run(length, rounds / 10 + 1, true);
+            double off = run(length, rounds, false)[0];
+            double[] on = run(length, rounds, true);
+            System.out.printf("%-8d %16.0f %16.0f %16.0f%n", length, off, on[0], on[1]);
+        }
+    }
+
+    /**
+     * @return [每次排队的平均耗时(ns), 检测到的死锁次数]
+     */
+    private static double[] run(int length, int rounds, boolean detect) {
+        long elapsed = 0;
+        long enqueues = 0;
+        long deadlocks = 0;
+        for (int round = 0; round < rounds; round++) {
+            ConflictControlServiceImpl service = new ConflictControlServiceImpl();
+            service.setConfiguration(length, 30000, 300000);
+            if (detect) {
+                service.setDeadlockDetection(DeadlockVictimPolicy.REQUESTER);
+            }
+            for (int i = 0; i < length; i++) {
+                service.operate("object" + i, "edit", null, "operator" + i);
+            }
+            long start = System.nanoTime();
+            // 最后一个操作者等待对象0，闭合为环
+            for (int i = length - 1; i >= 0; i--) {
+                service.operate("object" + ((i + 1) % length), "edit", null, "operator" + i);
+            }
+            elapsed += System.nanoTime() - start;
+            enqueues += length;
+            deadlocks += service.getDeadlocksDetected();
+        }
+        return new double[]{elapsed / (double) enqueues, deadlocks / (double) rounds};
+    }
+}
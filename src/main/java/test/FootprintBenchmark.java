@@ -0,0 +1,71 @@
+package test;
+
+import ch.qos.logback.classic.Level;
+import org.slf4j.LoggerFactory;
+import service.ConflictControlService;
+import service.impl.ConflictControlServiceImpl;
+import service.impl.OffHeapConflictControlServiceImpl;
+
+/**
+ * 内存占用基准测试
+ * 分别在堆内实现与堆外存储模式下锁定N个对象，比较每个对象占用的堆内存与直接内存
+ *
+ * 用法: FootprintBenchmark [对象数量，默认500000]
+ */
+public class FootprintBenchmark {
+
+    public static void main(String[] args) {
+        int objects = args.length > 0 ? Integer.parseInt(args[0]) : 500_000;
+        ((ch.qos.logback.classic.Logger) LoggerFactory.getLogger(ConflictControlServiceImpl.class)).setLevel(Level.ERROR);
+        ((ch.qos.logback.classic.Logger) LoggerFactory.getLogger(OffHeapConflictControlServiceImpl.class)).setLevel(Level.ERROR);
+
+        // 对象ID预先生成，不计入占用
+        String[] objectIds = new String[objects];
+        for (int i = 0; i < objects; i++) {
+            objectIds[i] = "document-" + i;
+        }
+
+        System.out.printf("%-10s %12s %14s %14s %12s%n", "mode", "objects", "heap(bytes)", "direct(bytes)", "bytes/object");
+        measure("on-heap", new ConflictControlServiceImpl(), objectIds);
+        measure("off-heap", new OffHeapConflictControlServiceImpl(objects), objectIds);
+    }
+
+    private static void measure(String mode, ConflictControlService service, String[] objectIds) {
+        long heapBefore = usedHeap();
+
+        long start = System.nanoTime();
+        for (int i = 0; i < objectIds.length; i++) {
+            // 每个对象一个写锁，每8个对象中有一个带等待者
+            service.operate(objectIds[i], "edit", null, "user" + (i % 1000));
+            if (i % 8 == 0) {
+                service.operate(objectIds[i], "edit", null, "user" + ((i + 1) % 1000));
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+
+        long heap = usedHeap() - heapBefore;
+        // 直接内存包含构造时预分配的槽位
+        long direct = service instanceof OffHeapConflictControlServiceImpl
+                ? ((OffHeapConflictControlServiceImpl) service).getOffHeapBytes() : 0;
+        System.out.printf("%-10s %12d %14d %14d %12.1f   (%.0f ops/s)%n", mode, objectIds.length, heap, direct,
+                (heap + direct) / (double) objectIds.length, objectIds.length * 1.125e9 / elapsed);
+
+        // 保持服务可达直到测量结束
+        if (service.hashCode() == 42) {
+            System.out.println();
+        }
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,318 @@
+package test;
+
+import ch.qos.logback.classic.Level;
+import model.ContentionMetric;
+import model.OperationResult;
+import org.slf4j.LoggerFactory;
+import service.ConflictControlService;
+import service.impl.ConflictControlServiceImpl;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 端到端负载生成器
+ * 模拟大量操作者的编辑会话（获取锁、带思考时间的多次刷新、退出或中途放弃），
+ * 对象热度服从Zipf分布，按读写比例混合读操作；操作者以事件驱动方式运行在少量线程上，
+ * 按阶段逐步增加操作者数量，周期性输出吞吐、交接延迟、队列已满率和过期率，用于找到服务的饱和点
+ *
+ * 用法: LoadGenerator [key=value ...]
+ *   operators=1000,2000,4000  各阶段操作者数量
+ *   stageSeconds=20           每阶段持续时间(s)
+ *   objects=10000             对象数量
+ *   zipf=1.1                  Zipf分布指数（越大越集中）
+ *   readRatio=0.3             读操作比例
+ *   refreshes=5               每次编辑会话的最大刷新次数
+ *   thinkMs=200               平均思考时间(ms)
+ *   abandon=0.05              编辑会话放弃（不退出）概率
+ *   pollMs=500                等待时的轮询间隔(ms)
+ *   holdMs=5000               锁最大持有时间(ms)
+ *   queueSize=5               最大队列容量
+ *   threads=CPU核数            驱动线程数
+ */
+public class LoadGenerator {
+
+    private final Map<String, String> options;
+    private final ConflictControlService service;
+    private final ScheduledExecutorService scheduler;
+    private final ZipfSampler objectSampler;
+    private final Metrics metrics = new Metrics();
+
+    private final double readRatio;
+    private final int maxRefreshes;
+    private final long thinkMs;
+    private final double abandonProbability;
+    private final long pollMs;
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int index = arg.indexOf('=');
+            if (index > 0) {
+                options.put(arg.substring(0, index), arg.substring(index + 1));
+            }
+        }
+        // 负载测试时关闭逐操作日志
+        ((ch.qos.logback.classic.Logger) LoggerFactory.getLogger(ConflictControlServiceImpl.class)).setLevel(Level.ERROR);
+
+        new LoadGenerator(options, new ConflictControlServiceImpl()).run();
+    }
+
+    public LoadGenerator(Map<String, String> options, ConflictControlService service) {
+        this.options = options;
+        this.service = service;
+        this.readRatio = doubleOption("readRatio", 0.3);
+        this.maxRefreshes = (int) longOption("refreshes", 5);
+        this.thinkMs = longOption("thinkMs", 200);
+        this.abandonProbability = doubleOption("abandon", 0.05);
+        this.pollMs = longOption("pollMs", 500);
+        this.objectSampler = new ZipfSampler((int) longOption("objects", 10000), doubleOption("zipf", 1.1));
+        this.scheduler = Executors.newScheduledThreadPool(
+                (int) longOption("threads", Runtime.getRuntime().availableProcessors()));
+        service.setConfiguration((int) longOption("queueSize", 5), longOption("holdMs", 5000), 300000);
+    }
+
+    public void run() throws InterruptedException {
+        long stageSeconds = longOption("stageSeconds", 20);
+        List<Operator> operators = new ArrayList<>();
+
+        System.out.printf("%-10s %10s %10s %10s %12s %12s %10s %10s%n",
+                "operators", "ops/s", "acq/s", "wait/s", "handoff-p50", "handoff-p99", "qfull%", "expire/s");
+        for (String stage : options.getOrDefault("operators", "1000,2000,4000").split(",")) {
+            int target = Integer.parseInt(stage.trim());
+            while (operators.size() < target) {
+                Operator operator = new Operator("op" + operators.size());
+                operators.add(operator);
+                // 错开启动，避免同时发起请求
+                scheduler.schedule(operator::step, ThreadLocalRandom.current().nextLong(thinkMs + 1),
+                        TimeUnit.MILLISECONDS);
+            }
+            for (long second = 0; second < stageSeconds; second += 5) {
+                Thread.sleep(5000);
+                report(operators.size(), 5);
+            }
+        }
+
+        operators.forEach(op -> op.stopped.set(true));
+        scheduler.shutdown();
+        scheduler.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    private void report(int operatorCount, long seconds) {
+        Metrics.Window window = metrics.drain();
+        long expirations = service instanceof ConflictControlServiceImpl
+                ? ((ConflictControlServiceImpl) service).getContentionProfiler().total(ContentionMetric.EXPIRATION)
+                : window.leaseLost;
+        long expiredInWindow = expirations - metrics.lastExpirations;
+        metrics.lastExpirations = expirations;
+
+        System.out.printf("%-10d %10.0f %10.0f %10.0f %10.1fms %10.1fms %9.2f%% %10.1f%n",
+                operatorCount,
+                window.operations / (double) seconds,
+                window.acquires / (double) seconds,
+                window.waits / (double) seconds,
+                window.handoffPercentile(0.50) / 1e6,
+                window.handoffPercentile(0.99) / 1e6,
+                window.writeAttempts == 0 ? 0 : 100.0 * window.queueFull / window.writeAttempts,
+                expiredInWindow / (double) seconds);
+    }
+
+    /**
+     * 模拟操作者（状态机，由调度线程驱动）
+     */
+    private class Operator {
+        final String operatorId;
+        final AtomicBoolean stopped = new AtomicBoolean();
+
+        String objectId;
+        String token;
+        int refreshesLeft;
+        long waitingSince;      // 开始等待的时间(ns)，0表示未等待
+
+        Operator(String operatorId) {
+            this.operatorId = operatorId;
+        }
+
+        void step() {
+            if (stopped.get()) {
+                return;
+            }
+            try {
+                if (token != null) {
+                    continueSession();
+                } else if (waitingSince != 0) {
+                    tryAcquire();
+                } else {
+                    startSession();
+                }
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+                reset();
+                next(thinkMs);
+            }
+        }
+
+        private void startSession() {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            objectId = "obj" + objectSampler.next(random);
+            if (random.nextDouble() < readRatio) {
+                OperationResult result = call("read", null);
+                service.operate(objectId, "exit", result.getToken(), operatorId);
+                metrics.operations.increment();
+                next(thinkTime());
+                return;
+            }
+            tryAcquire();
+        }
+
+        private void tryAcquire() {
+            metrics.writeAttempts.increment();
+            OperationResult result = call("edit", null);
+            if (result.isAllowed()) {
+                metrics.acquires.increment();
+                if (waitingSince != 0) {
+                    metrics.recordHandoff(System.nanoTime() - waitingSince);
+                }
+                waitingSince = 0;
+                token = result.getToken();
+                refreshesLeft = 1 + ThreadLocalRandom.current().nextInt(maxRefreshes);
+                next(thinkTime());
+            } else if (result.getWaitPosition() != null) {
+                metrics.waits.increment();
+                if (waitingSince == 0) {
+                    waitingSince = System.nanoTime();
+                }
+                next(pollMs);
+            } else {
+                metrics.queueFull.increment();
+                reset();
+                next(thinkTime());
+            }
+        }
+
+        private void continueSession() {
+            if (refreshesLeft-- > 0) {
+                OperationResult result = call("edit", token);
+                if (!result.isAllowed()) {
+                    // 租约已丢失（过期后被他人获取）
+                    metrics.leaseLost.increment();
+                    reset();
+                }
+                next(thinkTime());
+                return;
+            }
+            if (ThreadLocalRandom.current().nextDouble() >= abandonProbability) {
+                call("exit", token);
+            }
+            reset();
+            next(thinkTime());
+        }
+
+        private OperationResult call(String action, String token) {
+            metrics.operations.increment();
+            return service.operate(objectId, action, token, operatorId);
+        }
+
+        private void reset() {
+            token = null;
+            waitingSince = 0;
+        }
+
+        private void next(long delayMs) {
+            if (!stopped.get()) {
+                scheduler.schedule(this::step, delayMs, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    private long thinkTime() {
+        // 指数分布的思考时间
+        return (long) (-thinkMs * Math.log(1 - ThreadLocalRandom.current().nextDouble()));
+    }
+
+    private long longOption(String key, long defaultValue) {
+        return options.containsKey(key) ? Long.parseLong(options.get(key)) : defaultValue;
+    }
+
+    private double doubleOption(String key, double defaultValue) {
+        return options.containsKey(key) ? Double.parseDouble(options.get(key)) : defaultValue;
+    }
+
+    /**
+     * Zipf分布采样（预计算累积分布，二分查找）
+     */
+    static class ZipfSampler {
+        private final double[] cumulative;
+
+        ZipfSampler(int n, double exponent) {
+            cumulative = new double[n];
+            double sum = 0;
+            for (int i = 0; i < n; i++) {
+                sum += 1.0 / Math.pow(i + 1, exponent);
+                cumulative[i] = sum;
+            }
+            for (int i = 0; i < n; i++) {
+                cumulative[i] /= sum;
+            }
+        }
+
+        int next(Random random) {
+            int index = Arrays.binarySearch(cumulative, random.nextDouble());
+            return index >= 0 ? index : Math.min(-index - 1, cumulative.length - 1);
+        }
+    }
+
+    /**
+     * 统计指标（按报告周期清零）
+     */
+    private static class Metrics {
+        final LongAdder operations = new LongAdder();
+        final LongAdder acquires = new LongAdder();
+        final LongAdder waits = new LongAdder();
+        final LongAdder writeAttempts = new LongAdder();
+        final LongAdder queueFull = new LongAdder();
+        final LongAdder leaseLost = new LongAdder();
+        private List<Long> handoffs = new ArrayList<>();
+        long lastExpirations;
+
+        synchronized void recordHandoff(long nanos) {
+            handoffs.add(nanos);
+        }
+
+        Window drain() {
+            Window window = new Window();
+            window.operations = operations.sumThenReset();
+            window.acquires = acquires.sumThenReset();
+            window.waits = waits.sumThenReset();
+            window.writeAttempts = writeAttempts.sumThenReset();
+            window.queueFull = queueFull.sumThenReset();
+            window.leaseLost = leaseLost.sumThenReset();
+            synchronized (this) {
+                window.handoffs = handoffs;
+                handoffs = new ArrayList<>();
+            }
+            Collections.sort(window.handoffs);
+            return window;
+        }
+
+        static class Window {
+            long operations;
+            long acquires;
+            long waits;
+            long writeAttempts;
+            long queueFull;
+            long leaseLost;
+            List<Long> handoffs;
+
+            long handoffPercentile(double p) {
+                if (handoffs.isEmpty()) {
+                    return 0;
+                }
+                int index = (int) Math.ceil(p * handoffs.size()) - 1;
+                return handoffs.get(Math.max(0, Math.min(index, handoffs.size() - 1)));
+            }
+        }
+    }
+}
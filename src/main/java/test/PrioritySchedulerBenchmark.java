@@ -0,0 +1,74 @@
+package test;
+
+import model.WaitingRequest;
+import service.scheduler.PriorityClassScheduler;
+import service.scheduler.PriorityScheduler;
+import service.scheduler.PrioritySchedulers;
+import service.scheduler.WaitingQueue;
+import service.scheduler.WeightedFairScheduler;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 优先调度器基准测试
+ * 在不同队列长度下测量各调度器的入队+出队吞吐
+ */
+public class PrioritySchedulerBenchmark {
+
+    private static final String[] ACTIONS = {"edit", "save", "delete", "comment"};
+    private static final int OPERATORS = 64;
+
+    public static void main(String[] args) {
+        Map<String, PriorityScheduler> schedulers = new LinkedHashMap<>();
+        schedulers.put("FIFO", PrioritySchedulers.FIFO);
+        schedulers.put("SAME_ACTION_FIRST", PrioritySchedulers.SAME_ACTION_FIRST);
+        schedulers.put("PRIORITY_CLASS", new PriorityClassScheduler(
+                req -> req.getOperatorId().hashCode() & 3, 1000));
+        schedulers.put("WEIGHTED_FAIR", new WeightedFairScheduler(
+                operatorId -> 1 + (operatorId.hashCode() & 3)));
+
+        int[] queueSizes = {16, 1024, 65536};
+        int operations = 2_000_000;
+
+        System.out.printf("%-20s %10s %15s%n", "scheduler", "queueSize", "ops/s");
+        for (Map.Entry<String, PriorityScheduler> entry : schedulers.entrySet()) {
+            for (int queueSize : queueSizes) {
+                // 预热
+                run(entry.getValue(), queueSize, operations / 4);
+                double opsPerSecond = run(entry.getValue(), queueSize, operations);
+                System.out.printf("%-20s %10d %15.0f%n", entry.getKey(), queueSize, opsPerSecond);
+            }
+        }
+    }
+
+    /**
+     * 保持队列长度为queueSize，反复执行“出队一个、入队一个”
+     */
+    private static double run(PriorityScheduler scheduler, int queueSize, int operations) {
+        WaitingQueue queue = scheduler.newQueue();
+        long clock = 0;
+        for (int i = 0; i < queueSize; i++) {
+            queue.offer(newRequest(i, clock++));
+        }
+
+        long start = System.nanoTime();
+        String lastAction = null;
+        for (int i = 0; i < operations; i++) {
+            WaitingRequest next = queue.poll(lastAction);
+            lastAction = next.getAction();
+            queue.offer(newRequest(queueSize + i, clock++));
+        }
+        long elapsed = System.nanoTime() - start;
+        return operations * 1e9 / elapsed;
+    }
+
+    private static WaitingRequest newRequest(int i, long enqueueTime) {
+        WaitingRequest request = new WaitingRequest();
+        request.setRequestId(i);
+        request.setAction(ACTIONS[i % ACTIONS.length]);
+        request.setOperatorId("user" + (i % OPERATORS));
+        request.setEnqueueTime(enqueueTime);
+        return request;
+    }
+}
@@ -0,0 +1,31 @@
+package test;
+
+import service.impl.ConflictControlServiceImpl;
+import service.trace.ReplayReport;
+import service.trace.TraceReader;
+import service.trace.TraceReplayer;
+
+import java.io.FileInputStream;
+
+/**
+ * 轨迹回放工具
+ * 用法: TraceReplayTool <轨迹文件> [速度倍率，默认1，0为不限速]
+ */
+public class TraceReplayTool {
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.out.println("用法: TraceReplayTool <轨迹文件> [速度倍率，默认1，0为不限速]");
+            return;
+        }
+        double speed = args.length > 1 ? Double.parseDouble(args[1]) : 1;
+
+        try (TraceReader reader = new TraceReader(new FileInputStream(args[0]))) {
+            ReplayReport report = new TraceReplayer(new ConflictControlServiceImpl(), speed).replay(reader);
+            System.out.println("回放完成: " + report);
+            for (String sample : report.getMismatchSamples()) {
+                System.out.println("  差异: " + sample);
+            }
+        }
+    }
+}
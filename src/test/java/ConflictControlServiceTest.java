@@ -1,14 +1,41 @@
+import model.ContentionMetric;
+import model.ContentionSnapshot;
+import model.DeadlockVictimPolicy;
 import model.OperationResult;
 import model.PriorityStrategy;
+import model.StateTransition;
+import model.TenantMetrics;
+import model.TenantQuota;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.DisplayName;
 import service.ConflictControlService;
+import service.ObjectPolicy;
+import service.clock.VirtualClock;
+import service.cluster.ClusterNode;
+import service.cluster.ClusteredConflictControlService;
 import service.impl.ConflictControlServiceImpl;
-
+import service.impl.OffHeapConflictControlServiceImpl;
+import service.replication.ReplicationFollower;
+import service.replication.ReplicationPrimary;
+import service.scheduler.PriorityClassScheduler;
+import service.tenant.MultiTenantConflictControlService;
+import service.trace.RecordingConflictControlService;
+import service.trace.ReplayReport;
+import service.trace.TraceReader;
+import service.trace.TraceReplayer;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -335,6 +362,705 @@ public class ConflictControlServiceTest {
 
         System.out.println("=== 完整工作流测试通过 ===\n");
     }
-}
 
+    @Test
+    @DisplayName("测试16: 对象策略按前缀生效并作用于已有对象")
+    void testObjectPolicyAppliedToLiveObjects() throws InterruptedException {
+        service.setConfiguration(1, 30000, 300000);
+
+        // 热点文档在策略设置前已持有锁，队列容量为1
+        OperationResult lock = service.operate("hot:doc1", "edit", null, "userA");
+        assertTrue(lock.isAllowed());
+        assertEquals(1, service.operate("hot:doc1", "edit", null, "userB").getWaitPosition());
+        assertEquals("等待队列已满", service.operate("hot:doc1", "edit", null, "userC").getReason());
+
+        // 为hot:前缀设置更大的队列和更短的持有时间，最长前缀优先
+        service.setObjectPolicy("hot", new ObjectPolicy(60000L, null, 10, null));
+        service.setObjectPolicy("hot:", new ObjectPolicy(100L, null, 3, null));
+        assertEquals(2, service.operate("hot:doc1", "edit", null, "userC").getWaitPosition());
+        assertTrue(service.operate("cold:doc1", "edit", null, "userA").isAllowed());
+
+        // 已持有的锁按新的持有时间过期，并交给队首等待者
+        Thread.sleep(200);
+        OperationResult claimed = service.operate("hot:doc1", "edit", null, "userB");
+        assertTrue(claimed.isAllowed());
+        assertNotEquals(lock.getToken(), claimed.getToken());
+
+        // 移除策略后恢复全局配置
+        service.removeObjectPolicy("hot:");
+        service.removeObjectPolicy("hot");
+        assertEquals("等待队列已满", service.operate("hot:doc1", "edit", null, "userD").getReason());
+
+        System.out.println("对象策略测试通过");
+    }
+
+    @Test
+    @DisplayName("测试17: 优先级分类调度与相同动作优先")
+    void testPrioritySchedulers() {
+        // system用户优先级最高，其余用户老化时间足够长
+        service.setPriorityScheduler(new PriorityClassScheduler(
+                req -> req.getOperatorId().startsWith("system") ? 0 : 1, 60000));
+
+        String tokenA = service.operate("obj1", "edit", null, "userA").getToken();
+        service.operate("obj1", "edit", null, "userB");
+        service.operate("obj1", "edit", null, "systemJob");
+        service.operate("obj1", "exit", tokenA, "userA");
+
+        // system任务虽然后入队，仍先获得锁
+        assertFalse(service.operate("obj1", "edit", null, "userB").isAllowed());
+        assertTrue(service.operate("obj1", "edit", null, "systemJob").isAllowed());
+
+        // 相同动作优先：上一个持有者的动作决定下一个获得锁的请求
+        service.setPriorityStrategy(PriorityStrategy.SAME_ACTION_FIRST);
+        String tokenC = service.operate("obj2", "edit", null, "userC").getToken();
+        service.operate("obj2", "save", null, "userD");
+        service.operate("obj2", "edit", null, "userE");
+        service.operate("obj2", "exit", tokenC, "userC");
+        assertTrue(service.operate("obj2", "edit", null, "userE").isAllowed());
+
+        System.out.println("优先调度器测试通过");
+    }
+
+    @Test
+    @DisplayName("测试18: 竞争热点统计")
+    void testContentionProfiler() {
+        ConflictControlServiceImpl impl = new ConflictControlServiceImpl();
+        impl.setConfiguration(1, 30000, 300000);
+
+        // hot对象：多次获取与排队拒绝；其余对象各获取一次
+        for (int i = 0; i < 5; i++) {
+            String token = impl.operate("hot", "edit", null, "user" + i).getToken();
+            impl.operate("hot", "edit", null, "waiter" + i);
+            impl.operate("hot", "edit", null, "rejected" + i);
+            impl.operate("hot", "exit", token, "user" + i);
+            String claimed = impl.operate("hot", "edit", null, "waiter" + i).getToken();
+            impl.operate("hot", "exit", claimed, "waiter" + i);
+        }
+        for (int i = 0; i < 200; i++) {
+            impl.operate("cold" + i, "edit", null, "user");
+        }
+
+        ContentionSnapshot snapshot = impl.getContentionProfiler().snapshot(3);
+        assertEquals("hot", snapshot.getTopObjects().get(ContentionMetric.ACQUIRE).get(0).getObjectId());
+        assertEquals("hot", snapshot.getTopObjects().get(ContentionMetric.QUEUE_FULL).get(0).getObjectId());
+        assertEquals(5L, snapshot.getTotals().get(ContentionMetric.QUEUE_FULL));
+        assertEquals(210L, snapshot.getTotals().get(ContentionMetric.ACQUIRE));
+
+        System.out.println("竞争热点统计测试通过: " + snapshot.getTopObjects().get(ContentionMetric.ACQUIRE));
+    }
+
+    @Test
+    @DisplayName("测试19: 轨迹记录与回放")
+    void testTraceRecordAndReplay() throws Exception {
+        ByteArrayOutputStream trace = new ByteArrayOutputStream();
+        ConflictControlServiceImpl recorded = new ConflictControlServiceImpl();
+        recorded.setOptimisticConflictThreshold(2);
+        try (RecordingConflictControlService recorder = new RecordingConflictControlService(recorded, trace)) {
+            recorder.setConfiguration(2, 30000, 300000);
+            recorder.setPriorityStrategy(PriorityStrategy.SAME_ACTION_FIRST);
+            String tokenA = recorder.operate("doc1", "edit", null, "userA").getToken();
+            recorder.operate("doc1", "save", null, "userB");
+            recorder.operate("doc1", "edit", null, "userC");
+            recorder.operate("doc1", "edit", null, "userD");
+            String readToken = recorder.operate("doc1", "read", null, "userE").getToken();
+            recorder.operate("doc1", "edit", tokenA, "userA");
+            recorder.operate("doc1", "exit", tokenA, "userA");
+            String tokenC = recorder.operate("doc1", "edit", null, "userC").getToken();
+            recorder.operate("doc1", "exit", tokenC, "userC");
+            recorder.operate("doc1", "exit", readToken, "userE");
+
+            // 锁转交、升降级与乐观模式调用同样记录，回放时按映射后的Token和版本号调用
+            String tokenF = recorder.operate("doc2", "edit", null, "userF").getToken();
+            String tokenG = recorder.transfer("doc2", tokenF, "userF", "userG").getToken();
+            String downgraded = recorder.downgrade("doc2", tokenG, "userG").getToken();
+            String upgraded = recorder.upgrade("doc2", downgraded, "edit", "userG").getToken();
+            recorder.operate("doc2", "exit", upgraded, "userG");
+            long version = recorder.readVersion("doc3");
+            recorder.commit("doc3", version, "userH");
+            recorder.commit("doc3", version, "userI");
+        }
 
+        ConflictControlServiceImpl replayed = new ConflictControlServiceImpl();
+        replayed.setOptimisticConflictThreshold(2);
+        try (TraceReader reader = new TraceReader(new ByteArrayInputStream(trace.toByteArray()))) {
+            ReplayReport report = new TraceReplayer(replayed, TraceReplayer.AS_FAST_AS_POSSIBLE).replay(reader);
+            assertEquals(18, report.getOperations());
+            assertEquals(2, report.getConfigurationChanges());
+            assertEquals(0, report.getMismatches(), String.valueOf(report.getMismatchSamples()));
+            System.out.println("轨迹回放测试通过: " + report);
+        }
+    }
+
+    @Test
+    @DisplayName("测试20: 堆外存储模式")
+    void testOffHeapStorageMode() {
+        OffHeapConflictControlServiceImpl offHeap = new OffHeapConflictControlServiceImpl(16);
+        // 直接内存在分段首次写入时才分配
+        assertEquals(0, offHeap.getOffHeapBytes());
+
+        // 基本流程：获取、刷新、排队、交接、认领
+        String tokenA = offHeap.operate("doc1", "edit", null, "userA").getToken();
+        assertEquals(10, tokenA.length());
+        assertEquals(tokenA, offHeap.operate("doc1", "save", tokenA, "userA").getToken());
+        assertEquals(1, offHeap.operate("doc1", "edit", null, "userB").getWaitPosition());
+        assertEquals("Token不匹配", offHeap.operate("doc1", "exit", "WRONG_TOKEN", "userB").getReason());
+        assertTrue(offHeap.operate("doc1", "exit", tokenA, "userA").isAllowed());
+        String tokenB = offHeap.operate("doc1", "edit", null, "userB").getToken();
+        assertNotNull(tokenB);
+        assertNotEquals(tokenA, tokenB);
+
+        // 大量对象的加锁与释放，触发扩容和删除补位
+        String[] tokens = new String[5000];
+        for (int i = 0; i < tokens.length; i++) {
+            tokens[i] = offHeap.operate("obj" + i, "edit", null, "user" + i).getToken();
+        }
+        assertEquals(5001, offHeap.getObjectCount());
+        for (int i = 0; i < tokens.length; i += 2) {
+            assertTrue(offHeap.operate("obj" + i, "exit", tokens[i], "user" + i).isAllowed());
+        }
+        assertEquals(2501, offHeap.getObjectCount());
+        for (int i = 1; i < tokens.length; i += 2) {
+            assertEquals(tokens[i], offHeap.operate("obj" + i, "edit", tokens[i], "user" + i).getToken());
+        }
+
+        // 读操作与退出
+        String readToken = offHeap.operate("doc2", "read", null, "userC").getToken();
+        assertTrue(offHeap.operate("doc2", "exit", readToken, "userC").isAllowed());
+        // 已释放的对象槽位被删除，重复退出按空闲对象处理（与堆上实现一致）
+        assertTrue(offHeap.operate("doc2", "exit", readToken, "userC").isAllowed());
+        assertEquals("对象未被锁定", offHeap.operate("obj0", "exit", tokens[0], "user0").getReason());
+
+        // 对象策略变更后按新策略生效（槽位缓存的策略随版本失效）
+        offHeap.setObjectPolicy("queue-", new ObjectPolicy(null, null, 1, null));
+        offHeap.operate("queue-1", "edit", null, "userD");
+        assertEquals(1, offHeap.operate("queue-1", "edit", null, "userE").getWaitPosition());
+        assertFalse(offHeap.operate("queue-1", "edit", null, "userF").isAllowed());
+        offHeap.setObjectPolicy("queue-", new ObjectPolicy(null, null, 2, null));
+        assertEquals(2, offHeap.operate("queue-1", "edit", null, "userF").getWaitPosition());
+
+        System.out.println("堆外存储模式测试通过");
+    }
+
+    @Test
+    @DisplayName("测试21: 集群节点加入与离开时迁移锁和等待队列")
+    void testClusterMembershipMigration() throws Exception {
+        ClusteredConflictControlService cluster = new ClusteredConflictControlService(64);
+        cluster.addNode("node-1");
+        cluster.setConfiguration(5, 30000, 300000);
+
+        // 每个对象一个持有者和一个等待者
+        String[] tokens = new String[200];
+        for (int i = 0; i < tokens.length; i++) {
+            tokens[i] = cluster.operate("doc" + i, "edit", null, "owner" + i).getToken();
+            assertEquals(1, cluster.operate("doc" + i, "edit", null, "waiter" + i).getWaitPosition());
+        }
+
+        // 扩容：部分对象迁移到新节点，迁移期间请求不中断，Token继续有效
+        cluster.addNode("node-2");
+        AtomicInteger failures = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        Thread refresher = new Thread(() -> {
+            started.countDown();
+            for (int round = 0; round < 20; round++) {
+                for (int i = 0; i < tokens.length; i++) {
+                    if (!cluster.operate("doc" + i, "save", tokens[i], "owner" + i).isAllowed()) {
+                        failures.incrementAndGet();
+                    }
+                }
+            }
+        });
+        refresher.start();
+        started.await();
+        cluster.addNode("node-3");
+        refresher.join();
+        assertEquals(0, failures.get());
+        int moved = 0;
+        for (int i = 0; i < tokens.length; i++) {
+            if (cluster.nodeFor("doc" + i) != cluster.getNodes().iterator().next()) {
+                moved++;
+            }
+            assertEquals(tokens[i], cluster.operate("doc" + i, "save", tokens[i], "owner" + i).getToken());
+        }
+        assertTrue(moved > 0 && moved < tokens.length, "迁移对象数: " + moved);
+
+        // 缩容：离开节点的对象迁移回剩余节点，等待者在释放后仍能获得锁
+        cluster.removeNode("node-1");
+        for (int i = 0; i < tokens.length; i++) {
+            assertTrue(cluster.operate("doc" + i, "exit", tokens[i], "owner" + i).isAllowed());
+            assertNotNull(cluster.operate("doc" + i, "edit", null, "waiter" + i).getToken());
+        }
+
+        // 从非归属节点发起的请求被转发
+        ClusterNode entry = cluster.getNodes().iterator().next();
+        for (int i = 0; i < tokens.length; i++) {
+            entry.operate("doc" + i, "read", null, "reader");
+        }
+        assertTrue(entry.getForwardedRequests() > 0);
+
+        // 新加入的节点同步容量限制等集群配置
+        cluster.setCapacityLimits(0, 1);
+        ClusterNode added = cluster.addNode("node-4");
+        assertNotNull(added.getLocalService().operate("cap", "edit", null, "userA").getToken());
+        assertEquals(1, added.getLocalService().operate("cap", "edit", null, "userB").getWaitPosition());
+        assertFalse(added.getLocalService().operate("cap", "edit", null, "userC").isAllowed());
+        System.out.println("集群迁移测试通过，扩容迁移对象数: " + moved);
+    }
+
+    @Test
+    @DisplayName("测试22: 主从复制与故障切换")
+    void testReplicationFailover() throws Exception {
+        ConflictControlServiceImpl primary = new ConflictControlServiceImpl();
+
+        // 从节点连接前已持有的锁通过全量快照同步
+        String tokenA = primary.operate("doc1", "edit", null, "userA").getToken();
+        assertEquals(1, primary.operate("doc1", "edit", null, "userB").getWaitPosition());
+
+        ConflictControlServiceImpl standby = new ConflictControlServiceImpl();
+        try (ReplicationPrimary replication = new ReplicationPrimary(primary, 0, ReplicationPrimary.AckMode.SYNC);
+             ReplicationFollower follower = new ReplicationFollower(standby, "localhost", replication.getPort())) {
+            assertTrue(follower.awaitCaughtUp(5, TimeUnit.SECONDS));
+
+            // 连接后的变更同步复制
+            String tokenC = primary.operate("doc2", "edit", null, "userC").getToken();
+            for (int i = 0; i < 100; i++) {
+                primary.operate("doc2", "save", tokenC, "userC");
+            }
+            assertTrue(primary.operate("doc1", "exit", tokenA, "userA").isAllowed());
+            assertEquals(0, replication.getAckTimeouts());
+
+            // 主节点失效，从节点提升后继续服务
+            ConflictControlServiceImpl promoted = follower.promote();
+            assertEquals(tokenC, promoted.operate("doc2", "save", tokenC, "userC").getToken());
+            assertEquals("Token不匹配", promoted.operate("doc1", "exit", tokenA, "userA").getReason());
+            String tokenB = promoted.operate("doc1", "edit", null, "userB").getToken();
+            assertNotNull(tokenB, "自动分配给userB的待认领锁应已复制");
+            System.out.println("主从复制测试通过，合并变更数: " + replication.getCoalescedTransitions());
+        }
+    }
+
+    @Test
+    @DisplayName("测试23: 多租户隔离与配额")
+    void testMultiTenantQuotas() {
+        MultiTenantConflictControlService multiTenant = new MultiTenantConflictControlService();
+        ConflictControlService noisy = multiTenant.createTenant("noisy", new TenantQuota(3, 2, 20));
+        ConflictControlService quiet = multiTenant.createTenant("quiet", new TenantQuota(0, 0, 0));
+        noisy.setConfiguration(1, 30000, 300000);
+
+        // 对象数量上限：释放后的空闲对象不再计数
+        String token = multiTenant.operate("noisy", "doc0", "edit", null, "user0").getToken();
+        multiTenant.operate("noisy", "doc1", "edit", null, "user1");
+        multiTenant.operate("noisy", "doc2", "edit", null, "user2");
+        assertEquals("对象数量已达上限", multiTenant.operate("noisy", "doc3", "edit", null, "user3").getReason());
+        assertTrue(multiTenant.operate("noisy", "doc0", "exit", token, "user0").isAllowed());
+        assertNotNull(multiTenant.operate("noisy", "doc3", "edit", null, "user3").getToken());
+
+        // 等待者上限与租户自己的队列容量
+        assertEquals(1, multiTenant.operate("noisy", "doc1", "edit", null, "userA").getWaitPosition());
+        assertEquals("等待队列已满", multiTenant.operate("noisy", "doc1", "edit", null, "userB").getReason());
+        assertEquals(1, multiTenant.operate("noisy", "doc2", "edit", null, "userB").getWaitPosition());
+        assertEquals("等待者数量已达上限", multiTenant.operate("noisy", "doc3", "edit", null, "userC").getReason());
+
+        // 频率限制
+        int rateLimited = 0;
+        for (int i = 0; i < 50; i++) {
+            if ("操作频率超过租户限额".equals(multiTenant.operate("noisy", "doc1", "read", null, "reader").getReason())) {
+                rateLimited++;
+            }
+        }
+        assertTrue(rateLimited > 0);
+
+        // 限流器使用服务的时间源：虚拟时钟推进后按速率补充令牌
+        VirtualClock clock = new VirtualClock();
+        MultiTenantConflictControlService throttled = new MultiTenantConflictControlService(clock);
+        throttled.createTenant("t", new TenantQuota(0, 0, 10));
+        for (int i = 0; i < 10; i++) {
+            assertTrue(throttled.operate("t", "doc" + i, "read", null, "reader").isAllowed());
+        }
+        assertEquals("操作频率超过租户限额", throttled.operate("t", "doc0", "read", null, "reader").getReason());
+        clock.advance(200);
+        assertTrue(throttled.operate("t", "doc0", "read", null, "reader").isAllowed());
+        assertTrue(throttled.operate("t", "doc1", "read", null, "reader").isAllowed());
+        assertFalse(throttled.operate("t", "doc2", "read", null, "reader").isAllowed());
+
+        // 锁过期或读操作超时却从未退出的对象不再占用对象数量上限
+        ConflictControlService expiring = throttled.createTenant("expiring", new TenantQuota(2, 0, 0));
+        expiring.setConfiguration(5, 1000, 300000);
+        assertNotNull(throttled.operate("expiring", "doc0", "edit", null, "user0").getToken());
+        assertTrue(throttled.operate("expiring", "doc1", "read", null, "user1").isAllowed());
+        assertEquals("对象数量已达上限", throttled.operate("expiring", "doc2", "edit", null, "user2").getReason());
+        clock.advance(1500);
+        assertNotNull(throttled.operate("expiring", "doc2", "edit", null, "user2").getToken());
+        assertNotNull(throttled.operate("expiring", "doc3", "edit", null, "user3").getToken());
+        assertEquals("对象数量已达上限", throttled.operate("expiring", "doc4", "edit", null, "user4").getReason());
+
+        // 其他租户不受影响，同名对象相互独立
+        for (int i = 0; i < 50; i++) {
+            assertNotNull(quiet.operate("doc" + i, "edit", null, "user" + i).getToken());
+        }
+        assertEquals(1, quiet.operate("doc1", "edit", null, "userA").getWaitPosition());
+        assertEquals("租户不存在", multiTenant.operate("unknown", "doc1", "edit", null, "user1").getReason());
+
+        TenantMetrics metrics = multiTenant.getMetrics("noisy");
+        assertEquals(1, metrics.getObjectLimited());
+        assertEquals(1, metrics.getWaiterLimited());
+        assertEquals(rateLimited, metrics.getRateLimited());
+        assertEquals(2, metrics.getWaiterCount());
+        assertEquals(0, multiTenant.getMetrics("quiet").getRateLimited());
+        System.out.println("多租户测试通过: " + multiTenant.getAllMetrics());
+    }
+
+    @Test
+    @DisplayName("测试24: 虚拟时钟下的锁超时与等待超时")
+    void testVirtualClockExpiry() {
+        VirtualClock clock = new VirtualClock();
+        ConflictControlServiceImpl virtualService = new ConflictControlServiceImpl(clock);
+        virtualService.setConfiguration(5, 1000, 5000);
+
+        // 刷新延长租约，超过持有时间未刷新则释放并自动分配给等待者
+        String tokenA = virtualService.operate("doc1", "edit", null, "userA").getToken();
+        assertEquals(1, virtualService.operate("doc1", "edit", null, "userB").getWaitPosition());
+        clock.advance(800);
+        assertEquals(tokenA, virtualService.operate("doc1", "save", tokenA, "userA").getToken());
+        clock.advance(800);
+        assertEquals(tokenA, virtualService.operate("doc1", "save", tokenA, "userA").getToken());
+        clock.advance(1001);
+        String tokenB = virtualService.operate("doc1", "edit", null, "userB").getToken();
+        assertNotNull(tokenB);
+        assertNotEquals(tokenA, tokenB);
+
+        // 等待超过最大等待时间的请求被移除，不再获得锁
+        assertEquals(1, virtualService.operate("doc1", "edit", null, "userC").getWaitPosition());
+        for (int i = 0; i < 6; i++) {
+            clock.advance(900);
+            virtualService.operate("doc1", "save", tokenB, "userB");
+        }
+        assertTrue(virtualService.operate("doc1", "exit", tokenB, "userB").isAllowed());
+        assertNotNull(virtualService.operate("doc1", "edit", null, "userD").getToken());
+        System.out.println("虚拟时钟测试通过，耗时的模拟时间: " + clock.millis() + "ms");
+    }
+
+    @Test
+    @DisplayName("测试25: 乐观版本提交与自动切换悲观锁定")
+    void testOptimisticMode() {
+        ConflictControlServiceImpl optimistic = new ConflictControlServiceImpl();
+        assertEquals(-1, optimistic.readVersion("doc1"));
+        optimistic.setOptimisticConflictThreshold(2);
+
+        // 无竞争时读版本后直接提交
+        long version = optimistic.readVersion("doc1");
+        assertTrue(version > 0 && version % 2 == 0);
+        OperationResult committed = optimistic.commit("doc1", version, "userA");
+        assertTrue(committed.isAllowed());
+        long next = Long.parseLong(committed.getToken());
+        assertEquals(next, optimistic.readVersion("doc1"));
+
+        // 过期版本提交失败
+        assertEquals("版本冲突", optimistic.commit("doc1", version, "userB").getReason());
+
+        // 悲观锁持有期间不能乐观提交，释放后已读取的版本同样失效
+        String token = optimistic.operate("doc1", "edit", null, "userC").getToken();
+        assertEquals(-1, optimistic.readVersion("doc1"));
+        optimistic.operate("doc1", "exit", token, "userC");
+        assertEquals("版本冲突", optimistic.commit("doc1", next, "userB").getReason());
+
+        // 冲突达到阈值后切换为悲观锁定，锁释放且无人等待后恢复
+        assertEquals(-1, optimistic.readVersion("doc1"));
+        assertEquals("对象处于悲观锁定模式", optimistic.commit("doc1", next, "userB").getReason());
+        for (int i = 0; i < 2; i++) {
+            String lockToken = optimistic.operate("doc1", "edit", null, "userC").getToken();
+            assertTrue(optimistic.operate("doc1", "exit", lockToken, "userC").isAllowed());
+        }
+        long recovered = optimistic.readVersion("doc1");
+        assertTrue(recovered > next);
+        assertTrue(optimistic.commit("doc1", recovered, "userA").isAllowed());
+
+        // 对象被移除后重建，旧版本不会再次匹配
+        optimistic.setCapacityLimits(100, 0);
+        long stale = optimistic.readVersion("doc2");
+        String readToken = optimistic.operate("doc2", "read", null, "userD").getToken();
+        optimistic.operate("doc2", "exit", readToken, "userD");
+        assertNotEquals(stale, optimistic.readVersion("doc2"));
+        assertEquals("版本冲突", optimistic.commit("doc2", stale, "userA").getReason());
+        System.out.println("乐观模式测试通过");
+    }
+
+    @Test
+    @DisplayName("测试26: 跨对象死锁检测与牺牲者策略")
+    void testDeadlockDetection() throws Exception {
+        // 拒绝引发死锁的请求
+        ConflictControlServiceImpl requesterPolicy = new ConflictControlServiceImpl();
+        requesterPolicy.setDeadlockDetection(DeadlockVictimPolicy.REQUESTER);
+        requesterPolicy.operate("doc1", "edit", null, "userA");
+        requesterPolicy.operate("doc2", "edit", null, "userB");
+        requesterPolicy.operate("doc3", "edit", null, "userC");
+        assertEquals(1, requesterPolicy.operate("doc2", "edit", null, "userA").getWaitPosition());
+        assertEquals(1, requesterPolicy.operate("doc3", "edit", null, "userB").getWaitPosition());
+        assertEquals("检测到死锁", requesterPolicy.operate("doc1", "edit", null, "userC").getReason());
+        assertEquals(1, requesterPolicy.getDeadlocksDetected());
+
+        // 撤销最晚获取的锁，等待者获得该锁，请求者继续排队
+        VirtualClock clock = new VirtualClock();
+        ConflictControlServiceImpl youngestPolicy = new ConflictControlServiceImpl(clock);
+        youngestPolicy.setDeadlockDetection(DeadlockVictimPolicy.YOUNGEST);
+        String tokenA = youngestPolicy.operate("doc1", "edit", null, "userA").getToken();
+        clock.advance(10);
+        String tokenB = youngestPolicy.operate("doc2", "edit", null, "userB").getToken();
+        assertEquals(1, youngestPolicy.operate("doc2", "edit", null, "userA").getWaitPosition());
+        assertEquals(1, youngestPolicy.operate("doc1", "edit", null, "userB").getWaitPosition());
+        assertEquals("锁因死锁被撤销", youngestPolicy.operate("doc2", "save", tokenB, "userB").getReason());
+        assertNotNull(youngestPolicy.operate("doc2", "edit", null, "userA").getToken());
+        assertTrue(youngestPolicy.operate("doc1", "exit", tokenA, "userA").isAllowed());
+        assertNotNull(youngestPolicy.operate("doc1", "edit", null, "userB").getToken());
+
+        // 两个操作者同时交叉排队：搜索与等待登记为一步，总有一方检测到死锁
+        ConflictControlServiceImpl crossing = new ConflictControlServiceImpl();
+        crossing.setDeadlockDetection(DeadlockVictimPolicy.REQUESTER);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            for (int round = 0; round < 200; round++) {
+                String x = "x" + round;
+                String y = "y" + round;
+                crossing.operate(x, "edit", null, "userA" + round);
+                crossing.operate(y, "edit", null, "userB" + round);
+                CyclicBarrier barrier = new CyclicBarrier(2);
+                String operatorA = "userA" + round;
+                String operatorB = "userB" + round;
+                Future<OperationResult> a = executor.submit(() -> {
+                    barrier.await();
+                    return crossing.operate(y, "edit", null, operatorA);
+                });
+                Future<OperationResult> b = executor.submit(() -> {
+                    barrier.await();
+                    return crossing.operate(x, "edit", null, operatorB);
+                });
+                OperationResult resultA = a.get(5, TimeUnit.SECONDS);
+                OperationResult resultB = b.get(5, TimeUnit.SECONDS);
+                int detected = ("检测到死锁".equals(resultA.getReason()) ? 1 : 0)
+                        + ("检测到死锁".equals(resultB.getReason()) ? 1 : 0);
+                assertEquals(1, detected, "round " + round + ": " + resultA + " / " + resultB);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(200, crossing.getDeadlocksDetected());
+        System.out.println("死锁检测测试通过");
+    }
+
+    @Test
+    @DisplayName("测试27: 按刷新规律自适应租约")
+    void testAdaptiveLease() {
+        VirtualClock clock = new VirtualClock();
+        ConflictControlServiceImpl adaptive = new ConflictControlServiceImpl(clock);
+        adaptive.setConfiguration(5, 30000, 300000);
+        adaptive.setAdaptiveLease(200);
+
+        // 规律刷新的操作者：停止刷新后远早于最大持有时间被判定放弃
+        String steady = adaptive.operate("doc1", "edit", null, "steady").getToken();
+        for (int i = 0; i < 10; i++) {
+            clock.advance(100);
+            assertEquals(steady, adaptive.operate("doc1", "save", steady, "steady").getToken());
+        }
+        assertEquals(1, adaptive.operate("doc1", "edit", null, "waiter").getWaitPosition());
+        clock.advance(1000);
+        assertNotNull(adaptive.operate("doc1", "edit", null, "waiter").getToken());
+
+        // 刷新间隔起伏大的操作者：同样的停顿内租约仍然有效
+        String bursty = adaptive.operate("doc2", "edit", null, "bursty").getToken();
+        for (int i = 0; i < 10; i++) {
+            clock.advance(i % 2 == 0 ? 100 : 2000);
+            assertEquals(bursty, adaptive.operate("doc2", "save", bursty, "bursty").getToken());
+        }
+        clock.advance(1000);
+        assertEquals(bursty, adaptive.operate("doc2", "save", bursty, "bursty").getToken());
+
+        // 历史延续到新获取的锁
+        String next = adaptive.operate("doc3", "edit", null, "steady").getToken();
+        clock.advance(1000);
+        assertNotEquals(next, adaptive.operate("doc3", "edit", null, "other").getToken());
+        System.out.println("自适应租约测试通过");
+    }
+
+    @Test
+    @DisplayName("测试28: 锁转交与读写升降级")
+    void testTransferUpgradeDowngrade() {
+        // 转交：目标操作者无需排队，直接认领
+        String token = service.operate("doc1", "edit", null, "alice").getToken();
+        assertEquals(1, service.operate("doc1", "edit", null, "bob").getWaitPosition());
+        assertEquals(2, service.operate("doc1", "edit", null, "carol").getWaitPosition());
+        assertFalse(service.transfer("doc1", "wrong", "alice", "carol").isAllowed());
+        assertEquals("操作者与锁持有者不一致", service.transfer("doc1", token, "bob", "bob").getReason());
+        String transferred = service.transfer("doc1", token, "alice", "carol").getToken();
+        assertNotNull(transferred);
+        assertFalse(service.operate("doc1", "save", token, "alice").isAllowed());
+        String carolToken = service.operate("doc1", "edit", null, "carol").getToken();
+        assertEquals(transferred, carolToken);
+        assertNotEquals(token, carolToken);
+        // carol的排队请求已被移除，退出后由bob接手
+        service.operate("doc1", "exit", carolToken, "carol");
+        assertNotNull(service.operate("doc1", "edit", null, "bob").getToken());
+
+        // 升级：仅唯一读操作可升级
+        String read1 = service.operate("doc2", "read", null, "alice").getToken();
+        String read2 = service.operate("doc2", "read", null, "bob").getToken();
+        assertEquals("存在其他读操作", service.upgrade("doc2", read1, "edit", "alice").getReason());
+        service.operate("doc2", "exit", read2, "bob");
+        // 只能升级自己持有的读Token，伪造的读Token无效
+        assertEquals("操作者与读操作不一致", service.upgrade("doc2", read1, "edit", "bob").getReason());
+        assertEquals("读操作不存在", service.upgrade("doc2", "READ_00000000", "edit", "alice").getReason());
+        OperationResult upgraded = service.upgrade("doc2", read1, "edit", "alice");
+        assertTrue(upgraded.isAllowed());
+        assertEquals(1, service.operate("doc2", "edit", null, "bob").getWaitPosition());
+
+        // 降级：写锁交给等待者，调用者保留读操作
+        OperationResult downgraded = service.downgrade("doc2", upgraded.getToken(), "alice");
+        assertTrue(downgraded.isAllowed());
+        assertTrue(downgraded.getToken().startsWith("READ_"));
+        assertNotNull(service.operate("doc2", "edit", null, "bob").getToken());
+        assertFalse(service.downgrade("doc2", upgraded.getToken(), "alice").isAllowed());
+        // 升级消耗了原读Token，降级得到的读Token可正常退出
+        assertEquals("读操作不存在", service.upgrade("doc2", read1, "edit", "alice").getReason());
+        assertTrue(service.operate("doc2", "exit", downgraded.getToken(), "alice").isAllowed());
+        System.out.println("锁转交与升降级测试通过");
+    }
+
+    @Test
+    @DisplayName("测试29: 相容动作共享持有")
+    void testCompatibleActions() {
+        ConflictControlServiceImpl shared = new ConflictControlServiceImpl();
+        shared.setConfiguration(10, 30000, 300000);
+        shared.setActionCompatible("annotate", "comment", true);
+        shared.setActionCompatible("annotate", "annotate", true);
+        shared.setActionCompatible("comment", "comment", true);
+
+        // 相容动作直接共享持有，各自有独立的Token
+        String annotate = shared.operate("doc1", "annotate", null, "alice").getToken();
+        String comment = shared.operate("doc1", "comment", null, "bob").getToken();
+        assertNotNull(annotate);
+        assertNotNull(comment);
+        assertNotEquals(annotate, comment);
+        assertEquals(comment, shared.operate("doc1", "comment", comment, "bob").getToken());
+
+        // 互斥动作排队，之后到达的相容动作排在其后
+        assertEquals(1, shared.operate("doc1", "edit", null, "carol").getWaitPosition());
+        assertEquals(2, shared.operate("doc1", "comment", null, "dave").getWaitPosition());
+        assertFalse(shared.operate("doc1", "edit", comment, "bob").isAllowed());
+
+        // 最后一个持有者退出后才交给互斥动作
+        shared.operate("doc1", "exit", annotate, "alice");
+        assertEquals(2, shared.getWaiterCount());
+        shared.operate("doc1", "exit", comment, "bob");
+        String edit = shared.operate("doc1", "edit", null, "carol").getToken();
+        assertNotNull(edit);
+
+        // 互斥动作释放后，相容的等待者作为一组同时获得锁
+        shared.operate("doc1", "annotate", null, "erin");
+        shared.operate("doc1", "edit", null, "frank");
+        shared.operate("doc1", "exit", edit, "carol");
+        assertNotNull(shared.operate("doc1", "comment", null, "dave").getToken());
+        assertNotNull(shared.operate("doc1", "annotate", null, "erin").getToken());
+        assertEquals(1, shared.getWaiterCount());
+
+        // 成组授予在第一个不相容的等待者处停止，排在互斥动作之后的相容动作不越过它
+        String solo = shared.operate("doc2", "edit", null, "grace").getToken();
+        shared.operate("doc2", "comment", null, "heidi");
+        shared.operate("doc2", "edit", null, "ivan");
+        assertEquals(3, shared.operate("doc2", "annotate", null, "judy").getWaitPosition());
+        shared.operate("doc2", "exit", solo, "grace");
+        // doc1上的frank与doc2上的ivan、judy仍在排队
+        assertEquals(3, shared.getWaiterCount());
+        assertNotNull(shared.operate("doc2", "comment", null, "heidi").getToken());
+        System.out.println("相容动作共享持有测试通过");
+    }
+
+    @Test
+    @DisplayName("测试30: 会话心跳续期与过期释放")
+    void testSessionLease() {
+        VirtualClock clock = new VirtualClock();
+        ConflictControlServiceImpl sessions = new ConflictControlServiceImpl(clock);
+        sessions.setConfiguration(5, 1000, 300000);
+
+        String session = sessions.openSession("alice", 2000);
+        assertEquals("会话与操作者不匹配", sessions.operate("doc1", "edit", null, "bob", session).getReason());
+        String[] tokens = new String[10];
+        for (int i = 0; i < tokens.length; i++) {
+            tokens[i] = sessions.operate("doc" + i, "edit", null, "alice", session).getToken();
+            assertNotNull(tokens[i]);
+        }
+        // alice在doc10上排队，bob在doc0上排队
+        String other = sessions.operate("doc10", "edit", null, "bob").getToken();
+        assertEquals(1, sessions.operate("doc10", "edit", null, "alice", session).getWaitPosition());
+        assertEquals(1, sessions.operate("doc0", "edit", null, "bob").getWaitPosition());
+
+        // 心跳期间锁不因超过最大持有时间而过期
+        for (int i = 0; i < 5; i++) {
+            clock.advance(1500);
+            assertTrue(sessions.heartbeat(session));
+        }
+        assertEquals(tokens[3], sessions.operate("doc3", "save", tokens[3], "alice").getToken());
+        assertEquals(2, sessions.getWaiterCount());
+
+        // 关闭会话：锁全部释放，排队请求移除，doc0交给bob
+        assertTrue(sessions.closeSession(session));
+        assertFalse(sessions.heartbeat(session));
+        assertEquals(0, sessions.getWaiterCount());
+        assertNotNull(sessions.operate("doc0", "edit", null, "bob").getToken());
+        assertNotNull(sessions.operate("doc5", "edit", null, "carol").getToken());
+        sessions.operate("doc10", "exit", other, "bob");
+        assertNotNull(sessions.operate("doc10", "edit", null, "carol").getToken());
+
+        // 心跳中断后会话过期，批量释放
+        String expiring = sessions.openSession("dave", 2000);
+        String held = sessions.operate("doc20", "edit", null, "dave", expiring).getToken();
+        assertNotNull(held);
+        clock.advance(2500);
+        assertEquals(1, sessions.expireSessions());
+        assertEquals(0, sessions.getSessionCount());
+        assertFalse(sessions.operate("doc20", "save", held, "dave").isAllowed());
+        assertEquals("会话不存在或已过期", sessions.operate("doc21", "edit", null, "dave", expiring).getReason());
+
+        // 会话释放时移除排队请求同样发出状态变更
+        List<StateTransition.Type> transitions = new ArrayList<>();
+        sessions.setStateTransitionListener(transition -> {
+            transitions.add(transition.getType());
+            return null;
+        });
+        int queued = sessions.getWaiterCount();
+        String erin = sessions.openSession("erin", 2000);
+        String blocker = sessions.operate("doc30", "edit", null, "frank").getToken();
+        assertEquals(1, sessions.operate("doc30", "edit", null, "erin", erin).getWaitPosition());
+        transitions.clear();
+        assertTrue(sessions.closeSession(erin));
+        assertEquals(Collections.singletonList(StateTransition.Type.DEQUEUE), transitions);
+        assertEquals(queued, sessions.getWaiterCount());
+        sessions.setStateTransitionListener(null);
+
+        // 快照携带会话：导入方重建会话，锁仍随会话心跳续期、随会话过期释放
+        String grace = sessions.openSession("grace", 2000);
+        String graceToken = sessions.operate("doc31", "edit", null, "grace", grace).getToken();
+        sessions.operate("doc30", "edit", null, "grace", grace);
+        VirtualClock standbyClock = new VirtualClock();
+        ConflictControlServiceImpl standby = new ConflictControlServiceImpl(standbyClock);
+        standby.setConfiguration(5, 1000, 300000);
+        sessions.exportObjects(id -> id.equals("doc30") || id.equals("doc31"), false).forEach(standby::importObject);
+        assertEquals(1, standby.getSessionCount());
+        assertEquals(1, standby.getWaiterCount());
+        String henry = standby.openSession("henry", 2000);
+        for (int i = 0; i < 3; i++) {
+            standbyClock.advance(1500);
+            assertTrue(standby.heartbeat(grace));
+            assertTrue(standby.heartbeat(henry));
+        }
+        assertEquals(graceToken, standby.operate("doc31", "save", graceToken, "grace").getToken());
+
+        // grace停止心跳后，henry的心跳按ttl间隔顺带清理过期会话，无需调用方执行expireSessions
+        for (int i = 0; i < 2; i++) {
+            standbyClock.advance(1500);
+            assertTrue(standby.heartbeat(henry));
+        }
+        assertEquals(1, standby.getSessionCount());
+        assertEquals(0, standby.getWaiterCount());
+        assertFalse(standby.operate("doc31", "save", graceToken, "grace").isAllowed());
+        sessions.operate("doc30", "exit", blocker, "frank");
+        System.out.println("会话租约测试通过");
+    }
+}
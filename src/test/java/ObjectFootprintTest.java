@@ -0,0 +1,86 @@
+import ch.qos.logback.classic.Level;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jol.info.GraphLayout;
+import org.slf4j.LoggerFactory;
+import service.ConflictControlService;
+import service.impl.ConflictControlServiceImpl;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 对象内存占用测试（基于JOL统计服务对象图的大小）
+ * 分别统计空闲、持有锁、持有锁且有一个等待者三种状态下每个对象的平均字节数（64位、压缩指针），
+ * 不计入调用方持有的objectId字符串
+ */
+public class ObjectFootprintTest {
+
+    private static final int OBJECTS = 5000;
+    private static final int OPERATORS = 100;
+
+    @BeforeAll
+    static void quietLogs() {
+        ((ch.qos.logback.classic.Logger) LoggerFactory.getLogger(ConflictControlServiceImpl.class)).setLevel(Level.ERROR);
+    }
+
+    @Test
+    @DisplayName("空闲对象内存占用")
+    void testIdleObjectFootprint() {
+        double bytes = bytesPerObject((service, objectId, i) -> {
+            String readToken = service.operate(objectId, "read", null, operator(i)).getToken();
+            service.operate(objectId, "exit", readToken, operator(i));
+        });
+        System.out.printf("空闲对象: %.1f bytes/object%n", bytes);
+        assertTrue(bytes <= 130, "空闲对象占用过大: " + bytes);
+    }
+
+    @Test
+    @DisplayName("持有锁对象内存占用")
+    void testLockedObjectFootprint() {
+        double bytes = bytesPerObject((service, objectId, i) ->
+                service.operate(objectId, "edit", null, operator(i)));
+        System.out.printf("持有锁对象: %.1f bytes/object%n", bytes);
+        assertTrue(bytes <= 200, "持有锁对象占用过大: " + bytes);
+    }
+
+    @Test
+    @DisplayName("有等待者对象内存占用")
+    void testQueuedObjectFootprint() {
+        double bytes = bytesPerObject((service, objectId, i) -> {
+            service.operate(objectId, "edit", null, operator(i));
+            service.operate(objectId, "edit", null, operator(i + 1));
+        });
+        System.out.printf("有等待者对象: %.1f bytes/object%n", bytes);
+        assertTrue(bytes <= 320, "有等待者对象占用过大: " + bytes);
+    }
+
+    /**
+     * 每次调用都构造新的操作者ID字符串，模拟从请求中解析出的ID
+     */
+    private static String operator(int i) {
+        return new String("user" + (i % OPERATORS));
+    }
+
+    private static double bytesPerObject(Workload workload) {
+        ConflictControlService service = new ConflictControlServiceImpl();
+        String[] objectIds = new String[OBJECTS];
+        for (int i = 0; i < OBJECTS; i++) {
+            objectIds[i] = "document-" + i;
+        }
+        // 预热一个对象，排除服务本身的固定开销
+        workload.apply(service, "warmup", 0);
+        long baseline = GraphLayout.parseInstance(service).totalSize();
+
+        for (int i = 0; i < OBJECTS; i++) {
+            workload.apply(service, objectIds[i], i);
+        }
+        long total = GraphLayout.parseInstance(service).subtract(GraphLayout.parseInstance((Object) objectIds)).totalSize();
+        return (total - baseline) / (double) OBJECTS;
+    }
+
+    @FunctionalInterface
+    private interface Workload {
+        void apply(ConflictControlService service, String objectId, int i);
+    }
+}